@@ -0,0 +1,53 @@
+package org.pzdcdoc.gradle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.workers.WorkAction;
+import org.gradle.workers.WorkParameters;
+import org.pzdcdoc.Generator;
+
+/**
+ * Generation, running in a worker process.
+ *
+ * @author Shamil Vakhitov
+ */
+public abstract class GenerateAction implements WorkAction<GenerateAction.Parameters> {
+    /**
+     * Parameters, passed from {@link PzdcDocTask}.
+     */
+    public interface Parameters extends WorkParameters {
+        DirectoryProperty getSourceDir();
+        DirectoryProperty getOutputDir();
+        MapProperty<String, String> getAttributes();
+        Property<Integer> getThreads();
+    }
+
+    @Override
+    public void execute() {
+        var parameters = getParameters();
+
+        List<String> args = new ArrayList<>(List.of(
+            "--in", parameters.getSourceDir().get().getAsFile().getAbsolutePath(),
+            "--out", parameters.getOutputDir().get().getAsFile().getAbsolutePath()));
+        for (Map.Entry<String, String> attr : parameters.getAttributes().get().entrySet())
+            args.addAll(List.of("--attribute", attr.getKey() + "=" + attr.getValue()));
+        if (parameters.getThreads().isPresent())
+            args.addAll(List.of("--threads", String.valueOf(parameters.getThreads().get())));
+
+        int errors;
+        try {
+            errors = Generator.run(args.toArray(String[]::new));
+        } catch (Exception e) {
+            throw new GradleException("Generation failed: " + e.getMessage(), e);
+        }
+
+        if (errors > 0)
+            throw new GradleException("Generation errors: " + errors);
+    }
+}
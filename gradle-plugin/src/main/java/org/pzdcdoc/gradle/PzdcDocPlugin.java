@@ -0,0 +1,35 @@
+package org.pzdcdoc.gradle;
+
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+
+/**
+ * Gradle plugin, registering task {@code pzdcdoc} of type {@link PzdcDocTask}.
+ * The generator is resolved out of configuration {@code pzdcdoc}, by default it is the artifact of the plugin's version.
+ *
+ * @author Shamil Vakhitov
+ */
+public class PzdcDocPlugin implements Plugin<Project> {
+    /** Name of the task and the generator's configuration. */
+    public static final String NAME = "pzdcdoc";
+
+    @Override
+    public void apply(Project project) {
+        Configuration generator = project.getConfigurations().maybeCreate(NAME);
+        generator.setCanBeConsumed(false);
+        generator.defaultDependencies(dependencies ->
+            dependencies.add(project.getDependencies().create("org.pzdcdoc:pzdcdoc:" + PzdcDocPlugin.class.getPackage().getImplementationVersion())));
+
+        project.getTasks().withType(PzdcDocTask.class).configureEach(task -> {
+            task.getGeneratorClasspath().from(generator);
+            task.getOutputDir().convention(project.getLayout().getBuildDirectory().dir("doc-out"));
+        });
+
+        project.getTasks().register(NAME, PzdcDocTask.class, task -> {
+            task.setGroup("documentation");
+            task.setDescription("Generates HTML documentation out of AsciiDoc sources");
+            task.getSourceDir().convention(project.getLayout().getProjectDirectory().dir("src/doc"));
+        });
+    }
+}
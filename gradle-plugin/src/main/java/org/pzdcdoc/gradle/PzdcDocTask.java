@@ -0,0 +1,92 @@
+package org.pzdcdoc.gradle;
+
+import javax.inject.Inject;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileTree;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.IgnoreEmptyDirectories;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.workers.WorkerExecutor;
+
+/**
+ * Documentation generation task with declared inputs and outputs, supporting up-to-date checks and the build cache.
+ * The generator runs in a worker process, reused by Gradle between builds.
+ * Files outside of the source directory, referenced by snippets, have to be declared as task inputs, e.g. {@code inputs.dir('src/main/java')}.
+ *
+ * @author Shamil Vakhitov
+ */
+@CacheableTask
+public abstract class PzdcDocTask extends DefaultTask {
+    /**
+     * @return the source directory, including 'pzdcdoc.xml' configurations, includes and resources.
+     */
+    @InputDirectory
+    @IgnoreEmptyDirectories
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public abstract DirectoryProperty getSourceDir();
+
+    /**
+     * @return 'pzdcdoc.xml' configurations with inherited attributes, declared in addition to the source directory.
+     */
+    @InputFiles
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public FileTree getConfigurations() {
+        return getSourceDir().getAsFileTree().matching(pattern -> pattern.include("**/pzdcdoc.xml"));
+    }
+
+    /**
+     * @return attributes, overwriting ones from 'pzdcdoc.xml' files.
+     */
+    @Input
+    public abstract MapProperty<String, String> getAttributes();
+
+    /**
+     * @return count of parallel converting threads.
+     */
+    @Input
+    @Optional
+    public abstract Property<Integer> getThreads();
+
+    /**
+     * @return the generator with dependencies.
+     */
+    @Classpath
+    public abstract ConfigurableFileCollection getGeneratorClasspath();
+
+    /**
+     * @return the target directory.
+     */
+    @OutputDirectory
+    public abstract DirectoryProperty getOutputDir();
+
+    @Inject
+    protected abstract WorkerExecutor getWorkerExecutor();
+
+    @TaskAction
+    public void generate() {
+        var queue = getWorkerExecutor().processIsolation(spec -> {
+            spec.getClasspath().from(getGeneratorClasspath());
+            spec.forkOptions(fork -> fork.jvmArgs("--add-opens", "java.base/sun.nio.ch=ALL-UNNAMED", "--add-opens", "java.base/java.io=ALL-UNNAMED"));
+        });
+
+        queue.submit(GenerateAction.class, parameters -> {
+            parameters.getSourceDir().set(getSourceDir());
+            parameters.getOutputDir().set(getOutputDir());
+            parameters.getAttributes().set(getAttributes());
+            parameters.getThreads().set(getThreads());
+        });
+    }
+}
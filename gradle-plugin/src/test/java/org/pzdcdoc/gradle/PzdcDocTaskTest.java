@@ -0,0 +1,100 @@
+package org.pzdcdoc.gradle;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+import org.gradle.testkit.runner.TaskOutcome;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Functional test of the plugin, running the task in a sample project.
+ *
+ * @author Shamil Vakhitov
+ */
+public class PzdcDocTaskTest {
+    private static final String BUILD = """
+        plugins {
+            id 'org.pzdcdoc'
+        }
+
+        dependencies {
+            pzdcdoc files(%s)
+        }
+
+        tasks.named('pzdcdoc') {
+            attributes.put('pzdc-site-title', project.findProperty('siteTitle') ?: 'Demo')
+            // sources, referenced by snippets
+            inputs.dir('src/main/java').withPathSensitivity(PathSensitivity.RELATIVE)
+        }
+        """;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path projectDir;
+
+    @Before
+    public void init() throws Exception {
+        projectDir = folder.getRoot().toPath();
+
+        // the generator of the root project, passed by the build
+        String classpath = Stream.of(System.getProperty("pzdcdoc.classpath").split(File.pathSeparator))
+            .map(path -> "'" + path.replace('\\', '/') + "'")
+            .collect(Collectors.joining(", "));
+
+        Files.writeString(projectDir.resolve("settings.gradle"), "rootProject.name = 'sample'\n");
+        Files.writeString(projectDir.resolve("build.gradle"), BUILD.formatted(classpath));
+        write("src/doc/index.adoc", "= Index\n\nText.\n");
+        write("src/main/java/Sample.java", "class Sample {}\n");
+    }
+
+    @Test
+    public void testUpToDate() throws Exception {
+        Assert.assertEquals(TaskOutcome.SUCCESS, outcome(build()));
+        Assert.assertTrue(Files.exists(projectDir.resolve("build/doc-out/index.html")));
+        Assert.assertEquals(TaskOutcome.UP_TO_DATE, outcome(build()));
+
+        write("src/doc/index.adoc", "= Index\n\nChanged text.\n");
+        Assert.assertEquals("Changed source", TaskOutcome.SUCCESS, outcome(build()));
+        Assert.assertTrue(Files.readString(projectDir.resolve("build/doc-out/index.html")).contains("Changed text."));
+
+        write("src/doc/pzdcdoc.xml", "<pzdcdoc><attributes><toc-title>Content</toc-title></attributes></pzdcdoc>\n");
+        Assert.assertEquals("Added configuration", TaskOutcome.SUCCESS, outcome(build()));
+
+        Assert.assertEquals("Changed attribute", TaskOutcome.SUCCESS, outcome(build("-PsiteTitle=Other")));
+        Assert.assertEquals(TaskOutcome.UP_TO_DATE, outcome(build("-PsiteTitle=Other")));
+
+        write("src/main/java/Sample.java", "class Sample { void run() {} }\n");
+        Assert.assertEquals("Changed snippet source", TaskOutcome.SUCCESS, outcome(build("-PsiteTitle=Other")));
+
+        Files.writeString(projectDir.resolve("build/doc-out/index.html"), "");
+        Assert.assertEquals("Changed output", TaskOutcome.SUCCESS, outcome(build("-PsiteTitle=Other")));
+    }
+
+    private BuildResult build(String... args) {
+        return GradleRunner.create()
+            .withProjectDir(projectDir.toFile())
+            .withPluginClasspath()
+            .withArguments(Stream.concat(Stream.of(PzdcDocPlugin.NAME, "--stacktrace"), Stream.of(args)).toList())
+            .build();
+    }
+
+    private TaskOutcome outcome(BuildResult result) {
+        return result.task(":" + PzdcDocPlugin.NAME).getOutcome();
+    }
+
+    private void write(String path, String content) throws Exception {
+        Path file = projectDir.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+}
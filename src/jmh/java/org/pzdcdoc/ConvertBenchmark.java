@@ -0,0 +1,67 @@
+package org.pzdcdoc;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.asciidoctor.Asciidoctor;
+import org.asciidoctor.Options;
+import org.asciidoctor.SafeMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Asciidoctor conversion of representative pages, taken one by one from a corpus.
+ *
+ * @author Shamil Vakhitov
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ConvertBenchmark {
+    @Param({ "10", "1000", "10000" })
+    private int pages;
+
+    private Path dir;
+    private Asciidoctor asciidoctor;
+    private Options options;
+    private int page;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        dir = Corpus.adoc(pages);
+        // with the extensions, as in conversion of pages
+        asciidoctor = Generator.createAsciidoctor();
+        options = Options.builder()
+            .toFile(false)
+            .safe(SafeMode.UNSAFE)
+            .standalone(true)
+            .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        asciidoctor.close();
+        Corpus.delete(dir);
+    }
+
+    @Benchmark
+    public String convertFile() {
+        File file = dir.resolve(Corpus.page(page++ % pages) + ".adoc").toFile();
+        return asciidoctor.convertFile(file, options);
+    }
+}
@@ -0,0 +1,136 @@
+package org.pzdcdoc;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Synthetic documentation corpora for benchmarks.
+ * Pages are placed by {@link #PAGES_PER_DIR} in subdirectories, content is pseudo-random with a fixed seed.
+ *
+ * @author Shamil Vakhitov
+ */
+class Corpus {
+    static final int PAGES_PER_DIR = 100;
+
+    private static final String[] WORDS = {
+        "document", "generator", "snippet", "diagram", "reference", "search", "index", "module", "process", "configuration",
+        "документация", "генератор", "поиск", "модуль", "ссылка", "процесс",
+        "Dokumentation", "Suche", "Verweis", "Verarbeitung", "Modul"
+    };
+
+    /** Unavailable constructor */
+    private Corpus() {
+    }
+
+    /**
+     * @param page the page number.
+     * @return page's path, relative to the root directory, without extension.
+     */
+    static String page(int page) {
+        return "part" + (page / PAGES_PER_DIR) + "/page" + page;
+    }
+
+    /**
+     * Generates AsciiDoc sources.
+     * @param pages count of pages.
+     * @return the root directory with 'index.adoc' ToC.
+     * @throws IOException
+     */
+    static Path adoc(int pages) throws IOException {
+        Path dir = Files.createTempDirectory("corpus-adoc");
+        Random random = new Random(pages);
+
+        StringBuilder index = new StringBuilder("= Corpus\n\n");
+        for (int i = 0; i < pages; i++) {
+            index.append("* <<").append(page(i)).append(".adoc#, Page ").append(i).append(">>\n");
+
+            StringBuilder page = new StringBuilder();
+            page.append("= Page ").append(i).append("\n:toc:\n\n");
+            for (int section = 0; section < 5; section++) {
+                page.append("[[s").append(section).append("]]\n== Section ").append(section).append("\n");
+                page.append(text(random, 80)).append("\n\n");
+                page.append("* <<../").append(page(random.nextInt(pages))).append(".adoc#s1, Reference>>\n");
+                page.append("* <<#s").append(random.nextInt(5)).append(", Local>>\n\n");
+                page.append("[source, java]\n----\nclass Sample").append(section).append(" {\n    int value = ").append(i).append(";\n}\n----\n\n");
+                page.append("|===\n|Name |Value\n\n|").append(text(random, 3)).append(" |").append(text(random, 3)).append("\n|===\n\n");
+            }
+            write(dir.resolve(page(i) + ".adoc"), page);
+        }
+        write(dir.resolve("index.adoc"), index);
+
+        return dir;
+    }
+
+    /**
+     * Generates HTML pages, similar to the generated ones.
+     * @param pages count of pages.
+     * @return the root directory.
+     * @throws IOException
+     */
+    static Path html(int pages) throws IOException {
+        Path dir = Files.createTempDirectory("corpus-html");
+        Random random = new Random(pages);
+
+        for (int i = 0; i < pages; i++) {
+            StringBuilder page = new StringBuilder("<html><head><link rel=\"stylesheet\" href=\"../_res/pzdcdoc.css\">")
+                .append("<script src=\"../_res/pzdcdoc.js\"></script></head><body>");
+            for (int section = 0; section < 5; section++) {
+                page.append("<h2 id=\"s").append(section).append("\">Section</h2><p>").append(text(random, 80)).append("</p>")
+                    .append("<a href=\"../").append(page(random.nextInt(pages))).append(".html#s1\">Reference</a>")
+                    .append("<a href=\"#s").append(random.nextInt(5)).append("\">Local</a>")
+                    .append("<a href=\"https://pzdcdoc.org\">External</a>");
+            }
+            page.append("</body></html>");
+            write(dir.resolve(page(i) + ".html"), page);
+        }
+        write(dir.resolve("_res/pzdcdoc.css"), new StringBuilder());
+        write(dir.resolve("_res/pzdcdoc.js"), new StringBuilder());
+
+        return dir;
+    }
+
+    /**
+     * Generates the root ToC HTML, similar to the extracted from 'index.adoc'.
+     * @param pages count of pages.
+     * @return the HTML.
+     */
+    static String toc(int pages) {
+        StringBuilder result = new StringBuilder("<div id='header'><h1>Corpus</h1></div><div id='content'><ul>");
+        for (int i = 0; i < pages; i++) {
+            if (i % PAGES_PER_DIR == 0)
+                result.append(i == 0 ? "" : "</ul></li>").append("<li><p>Part</p><ul>");
+            result.append("<li><p><a href='").append(page(i)).append(".html'>Page ").append(i).append("</a></p></li>");
+        }
+        return result.append("</ul></li></ul></div>").toString();
+    }
+
+    /**
+     * Pseudo-random text of multilingual words.
+     * @param random random generator.
+     * @param words count of words.
+     * @return the text.
+     */
+    static String text(Random random, int words) {
+        StringBuilder result = new StringBuilder(words * 10);
+        for (int i = 0; i < words; i++)
+            result.append(i == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(10));
+        return result.toString();
+    }
+
+    /**
+     * Deletes a generated corpus.
+     * @param dir the root directory.
+     */
+    static void delete(Path dir) {
+        FileUtils.deleteQuietly(dir.toFile());
+    }
+
+    private static void write(Path file, CharSequence content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+}
@@ -0,0 +1,61 @@
+package org.pzdcdoc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Links extraction from a page and checking of all the corpus pages.
+ *
+ * @author Shamil Vakhitov
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class LinksBenchmark {
+    @Param({ "10", "1000", "10000" })
+    private int pages;
+
+    private Path dir;
+    private Document page;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        dir = Corpus.html(pages);
+        page = Jsoup.parse(Files.readString(dir.resolve(Corpus.page(0) + ".html")));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Corpus.delete(dir);
+    }
+
+    @Benchmark
+    public Iterable<Link> getLinks() {
+        return Links.getLinks(page);
+    }
+
+    @Benchmark
+    public int checkDir() throws Exception {
+        return new Links().checkDir(dir.toFile());
+    }
+}
@@ -0,0 +1,65 @@
+package org.pzdcdoc;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Search index building and serialization for all the corpus pages.
+ *
+ * @author Shamil Vakhitov
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SearchBenchmark {
+    @Param({ "10", "1000", "10000" })
+    private int pages;
+
+    private Path dir;
+    private File res;
+    private Search search;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("search");
+        res = Files.createDirectories(dir.resolve("_res")).toFile();
+    }
+
+    @Setup(Level.Invocation)
+    public void addArticles() {
+        search = new Search(dir.toFile());
+        Random random = new Random(pages);
+        for (int i = 0; i < pages; i++)
+            search.addArticle(new Search.Article(Corpus.page(i) + ".html", "Page " + i, Corpus.text(random, 400)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Corpus.delete(dir);
+    }
+
+    @Benchmark
+    public void writeScript() {
+        search.writeScript(res);
+    }
+}
@@ -0,0 +1,58 @@
+package org.pzdcdoc;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Global ToC preparing and rendering for a page, the ToC size grows with the corpus.
+ *
+ * @author Shamil Vakhitov
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ToCBenchmark {
+    private static final String PAGE_TOC = "<ul class='sectlevel1'><li><a href='#s0'>Section 0</a></li><li><a href='#s1'>Section 1</a></li></ul>";
+
+    @Param({ "10", "1000", "10000" })
+    private int pages;
+
+    private Element index;
+    private ToC toc;
+    private Path target;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        index = Jsoup.parse(Corpus.toc(pages)).body();
+        toc = new ToC(index.clone());
+        target = Path.of("/out", Corpus.page(pages / 2) + ".html");
+    }
+
+    @Benchmark
+    public ToC build() {
+        return new ToC(index.clone());
+    }
+
+    @Benchmark
+    public String render() {
+        return toc.render(target, "../", PAGE_TOC);
+    }
+}
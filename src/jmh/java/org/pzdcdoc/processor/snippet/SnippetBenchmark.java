@@ -0,0 +1,86 @@
+package org.pzdcdoc.processor.snippet;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Snippet include out of a large source file, moved from the referenced lines.
+ * Sizes of the source file are taken in pages of 100 lines.
+ * The source file is read either from {@link SourceCache}, as it is done by {@link Snippet}, or completely each time.
+ *
+ * @author Shamil Vakhitov
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnippetBenchmark {
+    private static final int LINES_PER_PAGE = 100;
+    /** Lines inserted before the snippet after it was referenced. */
+    private static final int MOVED = 20;
+
+    @Param({ "10", "1000", "10000" })
+    private int pages;
+
+    private Path file;
+    private int lineFrom;
+    private LineFunction fromF;
+    private SourceCache cache;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        int lines = pages * LINES_PER_PAGE;
+        StringBuilder content = new StringBuilder(lines * 40);
+        for (int i = 1; i <= lines; i++)
+            content.append("    int value").append(i).append(" = ").append(i).append(";\n");
+
+        file = Files.createTempFile("snippet", ".java");
+        Files.writeString(file, content);
+
+        // the snippet referenced in the middle of the file
+        int line = lines / 2;
+        lineFrom = line - MOVED;
+        fromF = new LineFunction.Starts("int value" + line + " ");
+
+        cache = new SourceCache(SourceCache.MAX_BYTES);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public PossibleLine include() throws Exception {
+        return include(cache.lines(file));
+    }
+
+    @Benchmark
+    public PossibleLine includeUncached() throws Exception {
+        return include(Files.readAllLines(file));
+    }
+
+    private PossibleLine include(List<String> lines) {
+        if (fromF.apply(lines.get(lineFrom - 1)))
+            return null;
+        return PossibleLine.find(lines, lineFrom, null, fromF);
+    }
+}
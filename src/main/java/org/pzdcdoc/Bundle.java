@@ -0,0 +1,267 @@
+package org.pzdcdoc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Concatenated and minified scripts or styles out of the classpath resources.
+ * The name contains the content hash, so the bundle may be cached by browsers forever.
+ *
+ * @author Shamil Vakhitov
+ */
+class Bundle {
+    private static final Logger log = LogManager.getLogger();
+
+    private static final String EXT_JS = ".js";
+    /** Length of the hash prefix, used in names. */
+    private static final int HASH_LENGTH = 12;
+
+    private final String name;
+    private final byte[] content;
+    /** Names of the same bundle with other contents, written by previous builds. */
+    private final Pattern previous;
+
+    /**
+     * Constructor.
+     * @param prefix the name prefix.
+     * @param ext the extension, '.js' or '.css'.
+     * @param dir the classpath directory.
+     * @param resources the resource names in the directory, concatenated in the given order.
+     */
+    Bundle(String prefix, String ext, String dir, String... resources) {
+        var result = new StringBuilder();
+        for (String resource : resources) {
+            String text = read(dir + "/" + resource);
+            // scripts are separated to prevent joining of statements
+            result.append(EXT_JS.equals(ext) ? minifyScript(text) + ";\n" : minifyStyle(text));
+        }
+
+        this.content = result.toString().getBytes(StandardCharsets.UTF_8);
+        this.name = prefix + "-" + Utils.hash(content).substring(0, HASH_LENGTH) + ext;
+        this.previous = Pattern.compile(Pattern.quote(prefix) + "-[0-9a-f]{" + HASH_LENGTH + "}" + Pattern.quote(ext));
+    }
+
+    /**
+     * @return the file name, containing the content hash.
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Writes the bundle, an existing file with the same name is not rewritten.
+     * Bundles with other hashes, written by previous builds, are deleted.
+     * @param dir the target directory.
+     * @throws IOException
+     */
+    void write(Path dir) throws IOException {
+        Path file = dir.resolve(name);
+        if (Files.exists(file))
+            log.debug("Not changed: {}", file);
+        else {
+            log.info("Writing bundle: {}", file);
+            Path tmp = file.resolveSibling(name + ".tmp");
+            Files.write(tmp, content);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path old : files.filter(f -> !f.equals(file) && previous.matcher(f.getFileName().toString()).matches()).toList()) {
+                log.info("Deleting previous bundle: {}", old);
+                Files.delete(old);
+            }
+        }
+    }
+
+    private static String read(String resource) {
+        try (InputStream in = Bundle.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null)
+                throw new IllegalArgumentException("Not found resource: " + resource);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Safe without parsing minification of a script: indentation, empty and single line comment lines are removed.
+     * Line breaks are kept, as they may terminate statements. Multi-line strings and template literals are not changed.
+     * @param text the script.
+     * @return the minified script.
+     */
+    static String minifyScript(String text) {
+        return minify(text, true);
+    }
+
+    /**
+     * Minification of a stylesheet: comments, indentation and line breaks are removed.
+     * Multi-line strings are not changed.
+     * @param text the stylesheet.
+     * @return the minified stylesheet.
+     */
+    static String minifyStyle(String text) {
+        return minify(text, false) + "\n";
+    }
+
+    private static String minify(String text, boolean script) {
+        var scanner = new Scanner(script);
+        var result = new StringBuilder(text.length());
+        for (String line : text.split("\r?\n")) {
+            boolean fromCode = scanner.close == 0;
+            boolean fromString = scanner.inString();
+            line = scanner.line(line);
+            boolean toString = scanner.inString();
+
+            if (!fromString)
+                line = line.stripLeading();
+            if (!toString)
+                line = line.stripTrailing();
+            if (!fromString && !toString && (line.isEmpty() || script && fromCode && line.startsWith("//")))
+                continue;
+
+            // the line break, continuing a string, is a part of it
+            result.append(line).append(script || toString ? '\n' : ' ');
+        }
+        return result.toString();
+    }
+
+    /**
+     * Scanner of lines, tracking strings, template literals and block comments, continued on the next lines.
+     */
+    private static class Scanner {
+        /** Closing character of a block comment. */
+        private static final char COMMENT = '*';
+        /** Preceding characters, after them a slash starts a regular expression in a script. */
+        private static final String REGEX_AFTER = "(,=:[!&|?{};+-*%<>~^";
+        /** Preceding keywords, after them a slash starts a regular expression, after other words it is a division. */
+        private static final Set<String> REGEX_AFTER_WORDS = Set.of(
+            "return", "typeof", "instanceof", "in", "of", "new", "delete", "void", "throw", "case", "do", "else", "yield", "await");
+
+        private final boolean script;
+        /** Closing character of the current string, template literal or block comment, {@code 0} for code. */
+        private char close;
+
+        private Scanner(boolean script) {
+            this.script = script;
+        }
+
+        /**
+         * @return the scanner is inside a string or a template literal.
+         */
+        private boolean inString() {
+            return close != 0 && close != COMMENT;
+        }
+
+        /**
+         * Scans a line.
+         * @param line the line.
+         * @return the line, block comments of stylesheets are removed.
+         */
+        private String line(String line) {
+            var result = new StringBuilder(line.length());
+            int length = line.length();
+            boolean continued = false;
+
+            for (int i = 0; i < length; i++) {
+                char c = line.charAt(i);
+                char next = i + 1 < length ? line.charAt(i + 1) : 0;
+
+                if (close == COMMENT) {
+                    if (c == '*' && next == '/') {
+                        close = 0;
+                        i++;
+                        if (script)
+                            result.append("*/");
+                    } else if (script)
+                        result.append(c);
+                } else if (close != 0) {
+                    result.append(c);
+                    if (c == '\\') {
+                        if (next != 0)
+                            result.append(line.charAt(++i));
+                        else
+                            continued = true;
+                    } else if (c == close)
+                        close = 0;
+                } else if (c == '/' && next == '*') {
+                    close = COMMENT;
+                    i++;
+                    if (script)
+                        result.append("/*");
+                } else if (script && c == '/' && next == '/') {
+                    result.append(line, i, length);
+                    break;
+                } else if (script && c == '/' && regex(result)) {
+                    int end = regexEnd(line, i);
+                    result.append(line, i, end);
+                    i = end - 1;
+                } else {
+                    if (c == '\'' || c == '"' || script && c == '`')
+                        close = c;
+                    result.append(c);
+                }
+            }
+
+            // quoted strings are continued only after a backslash
+            if ((close == '\'' || close == '"') && !continued)
+                close = 0;
+
+            return result.toString();
+        }
+
+        /**
+         * Checks if a slash starts a regular expression, not a division.
+         * @param code the preceding code in the line.
+         */
+        private static boolean regex(CharSequence code) {
+            int end = code.length();
+            while (end > 0 && Character.isWhitespace(code.charAt(end - 1)))
+                end--;
+            if (end == 0)
+                return true;
+
+            char c = code.charAt(end - 1);
+            if (!Character.isJavaIdentifierPart(c))
+                return REGEX_AFTER.indexOf(c) >= 0;
+
+            int start = end;
+            while (start > 0 && Character.isJavaIdentifierPart(code.charAt(start - 1)))
+                start--;
+            // a property with the keyword name, e.g. 'a.return / 2', is not a keyword
+            return REGEX_AFTER_WORDS.contains(code.subSequence(start, end).toString()) && (start == 0 || code.charAt(start - 1) != '.');
+        }
+
+        /**
+         * Finds the end of a regular expression.
+         * @param line the line.
+         * @param start the position of the starting slash.
+         * @return the position after the ending slash or the line length.
+         */
+        private static int regexEnd(String line, int start) {
+            boolean range = false;
+            for (int i = start + 1; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (c == '\\')
+                    i++;
+                else if (c == '[')
+                    range = true;
+                else if (c == ']')
+                    range = false;
+                else if (c == '/' && !range)
+                    return i + 1;
+            }
+            return line.length();
+        }
+    }
+}
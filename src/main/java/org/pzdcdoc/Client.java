@@ -0,0 +1,113 @@
+package org.pzdcdoc;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Thin client, submitting a generation job to the running {@link Daemon}.
+ * The arguments are the same as for {@link Generator}, the job output is printed out, the exit code is the count of errors.
+ * Without a running daemon the generation is done in the current process.
+ *
+ * @author Shamil Vakhitov
+ */
+public class Client {
+    /** Parameters with paths, resolved against the working directory. */
+    private static final Set<String> PATH_PARAMS = Set.of("-i", "--in", "-o", "--out", "-r", "--report");
+    /** Parameters with attributes. */
+    private static final Set<String> ATTR_PARAMS = Set.of("-a", "--attribute");
+    /** Attributes with paths, resolved against the working directory. */
+    private static final Set<String> PATH_ATTRS = Set.of("pzdc-javadoc-index");
+
+    /**
+     * Entry point for the client
+     * @param args command line arguments of {@link Generator}
+     * @throws Exception all exceptions cause exit with printing out stack trace
+     */
+    public static void main(String[] args) throws Exception {
+        Path socket = Daemon.SOCKET;
+        for (int i = 0; i < args.length - 1; i++)
+            if ("--socket".equals(args[i]))
+                socket = Path.of(args[i + 1]);
+
+        if (!Files.exists(socket)) {
+            Generator.main(args);
+            return;
+        }
+
+        SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            channel.connect(UnixDomainSocketAddress.of(socket));
+        } catch (IOException e) {
+            channel.close();
+            System.err.println("Daemon is not available: " + e.getMessage());
+            Generator.main(args);
+            return;
+        }
+
+        int errors;
+        try (channel) {
+            var out = new DataOutputStream(Channels.newOutputStream(channel));
+            Path cwd = Path.of("").toAbsolutePath();
+            out.writeUTF(cwd.toString());
+            out.writeInt(args.length);
+            for (String arg : absolute(cwd, args))
+                out.writeUTF(arg);
+            out.flush();
+
+            errors = read(new DataInputStream(Channels.newInputStream(channel)));
+        }
+
+        if (errors > 0)
+            System.exit(errors);
+    }
+
+    /**
+     * Resolves relative paths in arguments against the working directory, as the daemon has another one.
+     * Directory of the DrawIO cache is relative to the target one and is not changed.
+     * @param cwd the working directory.
+     * @param args the arguments.
+     * @return the arguments with absolute paths.
+     */
+    static String[] absolute(Path cwd, String[] args) {
+        String[] result = args.clone();
+        for (int i = 1; i < result.length; i++) {
+            String value = result[i];
+            if (PATH_PARAMS.contains(result[i - 1]))
+                result[i] = cwd.resolve(value).toString();
+            else if (ATTR_PARAMS.contains(result[i - 1]) && value.contains("=")) {
+                String name = StringUtils.substringBefore(value, "=");
+                String path = StringUtils.substringAfter(value, "=").trim();
+                if (PATH_ATTRS.contains(name) && !path.isEmpty() && !path.contains("://"))
+                    result[i] = name + "=" + cwd.resolve(path);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Prints out the job output.
+     * @param in the daemon's reply.
+     * @return count of errors.
+     * @throws IOException
+     */
+    private static int read(DataInputStream in) throws IOException {
+        for (int length; (length = in.readInt()) != Daemon.END;) {
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            System.out.write(bytes);
+        }
+        System.out.flush();
+
+        return in.readInt();
+    }
+}
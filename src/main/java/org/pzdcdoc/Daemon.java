@@ -0,0 +1,214 @@
+package org.pzdcdoc;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.asciidoctor.Asciidoctor;
+
+/**
+ * Build daemon, running generation jobs with warm Asciidoctor instances.
+ * Jobs are submitted by {@link Client} over a local Unix domain socket and executed one by one.
+ * <p>
+ * Protocol: the client sends its working directory, count of arguments and the arguments as modified UTF-8 strings.
+ * The daemon replies with frames of the job output, each one is a length and bytes, the frame with length {@code -1}
+ * is followed by the count of errors and closes the reply.
+ *
+ * @author Shamil Vakhitov
+ */
+class Daemon {
+    private static final Logger log = LogManager.getLogger();
+
+    /** Default socket path, in the directory of the user. */
+    static final Path SOCKET = Path.of(System.getProperty("java.io.tmpdir"), "pzdcdoc-" + System.getProperty("user.name"), "daemon.sock");
+    /** Length of the frame, ending a reply. */
+    static final int END = -1;
+    /** File permissions are supported. */
+    private static final boolean POSIX = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+
+    private final Path socket;
+    private final Duration idleTimeout;
+    private final BlockingQueue<Asciidoctor> asciidoctors;
+
+    /**
+     * Constructor.
+     * @param socket the socket path.
+     * @param idleTimeout period without jobs, after that the daemon is stopped.
+     * @param asciidoctors pool of Asciidoctor instances, shared between jobs.
+     */
+    Daemon(Path socket, Duration idleTimeout, BlockingQueue<Asciidoctor> asciidoctors) {
+        this.socket = socket;
+        this.idleTimeout = idleTimeout;
+        this.asciidoctors = asciidoctors;
+    }
+
+    /**
+     * Accepts and runs jobs until the idle timeout.
+     * @throws IOException another daemon is listening on the socket or it can't be opened.
+     */
+    void run() throws IOException {
+        if (alive(socket))
+            throw new IOException("Another daemon is listening on: " + socket);
+
+        directory();
+        Files.deleteIfExists(socket);
+
+        try (var server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+                var selector = Selector.open()) {
+            server.bind(UnixDomainSocketAddress.of(socket));
+            if (POSIX)
+                Files.setPosixFilePermissions(socket, PosixFilePermissions.fromString("rw-------"));
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+
+            log.info("Daemon is listening on: {}, idle timeout: {}", socket, idleTimeout);
+
+            while (selector.select(idleTimeout.toMillis()) > 0) {
+                selector.selectedKeys().clear();
+
+                try (SocketChannel channel = server.accept()) {
+                    if (channel == null)
+                        continue;
+                    channel.configureBlocking(true);
+                    job(channel);
+                } catch (EOFException e) {
+                    log.debug("Connection is closed without a job");
+                } catch (IOException e) {
+                    log.error(e.getMessage(), e);
+                }
+            }
+
+            log.info("Daemon is stopped after the idle timeout");
+        } finally {
+            Files.deleteIfExists(socket);
+        }
+    }
+
+    /**
+     * Checks if a daemon is listening on a socket.
+     * @param socket the socket path.
+     * @return a connection to the socket is accepted.
+     */
+    static boolean alive(Path socket) {
+        if (!Files.exists(socket))
+            return false;
+        try (var channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socket));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates the directory of the socket, a new one is accessible only by the user.
+     * The existing directory of the default socket must belong to the user.
+     * @throws IOException
+     */
+    private void directory() throws IOException {
+        Path dir = socket.toAbsolutePath().getParent();
+        if (Files.notExists(dir)) {
+            if (POSIX)
+                Files.createDirectories(dir, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+            else
+                Files.createDirectories(dir);
+        } else if (socket.equals(SOCKET) && !Files.getOwner(dir).getName().equals(System.getProperty("user.name")))
+            throw new IOException("The socket directory belongs to another user: " + dir);
+    }
+
+    /**
+     * Runs a single job, the output of it is sent to the client.
+     * @param channel the client connection.
+     * @throws IOException
+     */
+    private void job(SocketChannel channel) throws IOException {
+        var in = new DataInputStream(Channels.newInputStream(channel));
+        Path cwd = Path.of(in.readUTF());
+        String[] args = new String[in.readInt()];
+        for (int i = 0; i < args.length; i++)
+            args[i] = in.readUTF();
+
+        var out = new DataOutputStream(Channels.newOutputStream(channel));
+
+        PrintStream stdout = System.out;
+        PrintStream stderr = System.err;
+        // the console appender follows the replaced streams
+        var jobOut = new PrintStream(new FrameOutputStream(out, stdout), true, StandardCharsets.UTF_8);
+        System.setOut(jobOut);
+        System.setErr(jobOut);
+
+        int errors;
+        try {
+            errors = Generator.job(cwd, args, asciidoctors);
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            errors = 1;
+        } finally {
+            jobOut.flush();
+            System.setOut(stdout);
+            System.setErr(stderr);
+        }
+
+        out.writeInt(END);
+        out.writeInt(errors);
+        out.flush();
+    }
+
+    /**
+     * Output, sending written bytes to the client as frames and copying them to the daemon's output.
+     */
+    private static class FrameOutputStream extends OutputStream {
+        private final DataOutputStream out;
+        private final PrintStream copy;
+        /** The client has disconnected, the job continues. */
+        private boolean closed;
+
+        private FrameOutputStream(DataOutputStream out, PrintStream copy) {
+            this.out = out;
+            this.copy = copy;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) throws IOException {
+            copy.write(b, off, len);
+            if (closed || len == 0)
+                return;
+            try {
+                out.writeInt(len);
+                out.write(b, off, len);
+            } catch (IOException e) {
+                closed = true;
+            }
+        }
+
+        @Override
+        public synchronized void flush() throws IOException {
+            if (!closed)
+                out.flush();
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package org.pzdcdoc;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Checker of external HTTP links.
+ * Unique URLs of all the pages are checked concurrently on virtual threads with limited count of parallel requests to a host.
+ * Results are stored in a cache file and re-used during the TTL, temporary failures are checked again in the next build.
+ *
+ * @author Shamil Vakhitov
+ */
+class ExternalLinks {
+    private static final Logger log = LogManager.getLogger();
+
+    static final String FILE = ".pzdcdoc-external.json";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    /** Request timeout. */
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    /** User agent, some servers reject requests without it. */
+    private static final String USER_AGENT = "Mozilla/5.0 (compatible; PzdcDoc link checker)";
+
+    private final File cacheFile;
+    private final Duration ttl;
+    private final int hostRequests;
+    /** URLs with referencing pages. */
+    private final Map<String, Set<String>> urls = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     * @param cacheFile the results cache file.
+     * @param ttl period of re-using of cached results.
+     * @param hostRequests max count of parallel requests to a host.
+     */
+    ExternalLinks(File cacheFile, Duration ttl, int hostRequests) {
+        this.cacheFile = cacheFile;
+        this.ttl = ttl;
+        this.hostRequests = hostRequests;
+    }
+
+    /**
+     * Adds external URLs of a page, thread safe.
+     * @param file the page file.
+     * @param urls the URLs.
+     */
+    void add(Path file, Collection<String> urls) {
+        for (String url : urls)
+            this.urls.computeIfAbsent(url, key -> new ConcurrentSkipListSet<>()).add(file.toString());
+    }
+
+    /**
+     * Checks all the added URLs.
+     * @return count of errors: references to unavailable URLs.
+     * @throws Exception
+     */
+    int check() throws Exception {
+        log.info("Start checking of {} external links", urls.size());
+
+        Map<String, Result> cache = loadCache();
+        long now = System.currentTimeMillis();
+
+        Map<String, Semaphore> limits = new ConcurrentHashMap<>();
+        Map<String, Future<Result>> checks = new TreeMap<>();
+        try (var client = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NORMAL).connectTimeout(TIMEOUT).build();
+                var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String url : urls.keySet()) {
+                Result cached = cache.get(url);
+                if (cached != null && !cached.temporary() && now - cached.checked < ttl.toMillis()) {
+                    log.debug("Cached: {}", url);
+                    checks.put(url, CompletableFuture.completedFuture(cached));
+                    continue;
+                }
+
+                Semaphore limit = limits.computeIfAbsent(host(url), host -> new Semaphore(hostRequests));
+                checks.put(url, executor.submit(() -> {
+                    limit.acquire();
+                    try {
+                        return check(client, url);
+                    } finally {
+                        limit.release();
+                    }
+                }));
+            }
+
+            int result = 0;
+            Map<String, Result> checked = new TreeMap<>();
+            for (var check : checks.entrySet()) {
+                String url = check.getKey();
+                Result status = check.getValue().get();
+                checked.put(url, status);
+
+                if (!status.ok()) {
+                    for (String page : urls.get(url)) {
+                        log.error("Not available external link: {}, status: {}, page: {}", url, status.status, page);
+                        result++;
+                    }
+                }
+            }
+
+            writeCache(cache, checked, now);
+
+            return result;
+        }
+    }
+
+    /**
+     * Checks a URL with HEAD request, falling back to GET for servers, not supporting it.
+     * @param client the HTTP client.
+     * @param url the URL.
+     * @return the check result.
+     */
+    static Result check(HttpClient client, String url) {
+        log.debug("Checking: {}", url);
+
+        var result = new Result();
+        result.checked = System.currentTimeMillis();
+        try {
+            result.status = send(client, url, "HEAD");
+            if (result.status >= 400)
+                result.status = send(client, url, "GET");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.debug("Check error: {}, {}", url, e.toString());
+        }
+        return result;
+    }
+
+    private static int send(HttpClient client, String url, String method) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(url))
+            .timeout(TIMEOUT)
+            .header("User-Agent", USER_AGENT)
+            .method(method, HttpRequest.BodyPublishers.noBody())
+            .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static String host(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host : url;
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    private Map<String, Result> loadCache() {
+        if (cacheFile.exists()) {
+            try {
+                return MAPPER.readValue(cacheFile, new TypeReference<Map<String, Result>>() {});
+            } catch (Exception e) {
+                log.error("Ignoring incorrect external links cache: " + cacheFile, e);
+            }
+        }
+        return Map.of();
+    }
+
+    /**
+     * Writes the cache, merged out of the previous one and the current results.
+     * Results of URLs, not checked in the build, are kept during the TTL. Temporary failures are not cached.
+     * @param cache the previous cache.
+     * @param checked the current results.
+     * @param now the current time.
+     */
+    private void writeCache(Map<String, Result> cache, Map<String, Result> checked, long now) {
+        Map<String, Result> merged = new TreeMap<>();
+        for (var entry : cache.entrySet())
+            if (now - entry.getValue().checked < ttl.toMillis())
+                merged.put(entry.getKey(), entry.getValue());
+        for (var entry : checked.entrySet()) {
+            if (entry.getValue().temporary())
+                merged.remove(entry.getKey());
+            else
+                merged.put(entry.getKey(), entry.getValue());
+        }
+
+        log.info("Writing external links cache: {}", cacheFile);
+        try {
+            MAPPER.writeValue(cacheFile, merged);
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Result of a URL check.
+     */
+    public static class Result {
+        private int status;
+        private long checked;
+
+        /**
+         * @return HTTP status code, 0 for connection errors.
+         */
+        public int getStatus() {
+            return status;
+        }
+
+        public void setStatus(int status) {
+            this.status = status;
+        }
+
+        /**
+         * @return time of the check in milliseconds.
+         */
+        public long getChecked() {
+            return checked;
+        }
+
+        public void setChecked(long checked) {
+            this.checked = checked;
+        }
+
+        /**
+         * @return the URL is available.
+         */
+        boolean ok() {
+            return status > 0 && status < 400;
+        }
+
+        /**
+         * @return the failure may be temporary: connection error, timeout, rate limit or server error.
+         */
+        boolean temporary() {
+            return status == 0 || status == 408 || status == 429 || status >= 500;
+        }
+    }
+}
@@ -3,13 +3,32 @@ package org.pzdcdoc;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -28,6 +47,7 @@ import org.dom4j.DocumentException;
 import org.dom4j.Node;
 import org.dom4j.io.SAXReader;
 import org.jsoup.Jsoup;
+import org.jsoup.nodes.Comment;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.kohsuke.args4j.CmdLineException;
@@ -61,14 +81,29 @@ public class Generator {
     private static final String EXT_ADOCF = ".adocf";
     private static final String EXT_HTML = ".html";
 
-    private static final String ATTR_SITE_TITLE = "pzdc-site-title";
+    /** Period of re-using of cached external links check results. */
+    private static final Duration EXTERNAL_TTL = Duration.ofDays(1);
 
-    private final Asciidoctor asciidoctor = Factory.create();
+    /** Placeholder of the global ToC in a page. */
+    private static final String TOC_PLACEHOLDER = "pzdc-toc";
 
-    private static final String[] SCRIPTS = { "jquery-3.3.1.js", "pzdcdoc.js",
+    private static final String ATTR_SITE_TITLE = "pzdc-site-title";
+    /** Set for bundled scripts and styles. */
+    private static final String ATTR_BUNDLE = "pzdc-bundle";
+    /** Set for optimized images. */
+    private static final String ATTR_OPTIMIZE_IMAGES = "pzdc-optimize-images";
+    /** Set for streaming post-processing. */
+    private static final String ATTR_STREAM = "pzdc-stream";
+
+    private static final Pattern INCLUDE = Pattern.compile("^include::([^\\[]+)\\[", Pattern.MULTILINE);
+
+    private static final String[] SCRIPTS_MAIN = { "jquery-3.3.1.js", "pzdcdoc.js" };
+    /** Stemmers, used only by search. */
+    private static final String[] SCRIPTS_SEARCH = {
         // https://lunrjs.com/guides/language_support.html
         "lunr-2.3.6.js", "lunr.stemmer.support.js", "lunr.multi.js", "lunr.ru.js", "lunr.de.js"
     };
+    private static final String[] SCRIPTS = ArrayUtils.addAll(SCRIPTS_MAIN, SCRIPTS_SEARCH);
     private static final String[] SCRIPTS_INJECT = ArrayUtils.add(SCRIPTS, Search.SCRIPT);
 
     private static final String ASCIIDOCTOR_DEFAULT_CSS = "asciidoctor.css";
@@ -76,6 +111,11 @@ public class Generator {
     private static final String FONT_CSS = "font.css";
     private static final String[] STYLESHEETS = { ASCIIDOCTOR_DEFAULT_CSS, PZDCDOC_CSS, FONT_CSS, "coderay-asciidoctor.css" };
     private static final String[] STYLESHEETS_INJECT = { PZDCDOC_CSS, FONT_CSS };
+    /** Stylesheets in the order of linking to pages. */
+    private static final String[] STYLESHEETS_BUNDLE = { ASCIIDOCTOR_DEFAULT_CSS, "coderay-asciidoctor.css", PZDCDOC_CSS, FONT_CSS };
+
+    /** Asciidoctor instances of {@link #run(String...)} calls, kept warm between them in the same JVM, e.g. in a reused Gradle worker. */
+    private static final BlockingQueue<Asciidoctor> RUN_ASCIIDOCTORS = new LinkedBlockingQueue<>();
 
     /**
      * Entry point for the generator
@@ -84,17 +124,18 @@ public class Generator {
      */
     public static void main(String[] args) throws Exception {
         var gen = new Generator();
-        var parser = new CmdLineParser(gen);
-        try {
-            parser.parseArgument(args);
-        } catch (CmdLineException e) {
-            System.err.println(e.getMessage());
-            parser.printUsage(System.err);
+        if (!gen.parse(args))
             System.exit(1);
+
+        if (gen.daemon) {
+            new Daemon(gen.socket != null ? gen.socket.toPath() : Daemon.SOCKET, Duration.ofMinutes(gen.idleTimeout), gen.asciidoctors).run();
+            return;
         }
 
-        int errors = gen.process();
-        errors += gen.check();
+        int errors = gen.build();
+
+        if (gen.watch)
+            gen.watch();
 
         log.info("DONE!");
 
@@ -104,21 +145,156 @@ public class Generator {
         }
     }
 
+    /**
+     * Runs the generation without exiting of the JVM, e.g. out of build tools.
+     * Asciidoctor instances are shared with the next calls.
+     * @param args command line arguments, options --watch and --daemon are not supported.
+     * @return count of errors.
+     * @throws Exception
+     */
+    public static int run(String... args) throws Exception {
+        return job(Path.of("").toAbsolutePath(), args, RUN_ASCIIDOCTORS);
+    }
+
+    /**
+     * Runs a generation job in the daemon, using the shared Asciidoctor instances.
+     * @param cwd working directory of the client, relative paths are resolved against it.
+     * @param args command line arguments.
+     * @param asciidoctors the Asciidoctor instances.
+     * @return count of errors.
+     * @throws Exception
+     */
+    static int job(Path cwd, String[] args, BlockingQueue<Asciidoctor> asciidoctors) throws Exception {
+        var gen = new Generator(asciidoctors);
+        if (!gen.parse(args))
+            return 1;
+
+        if (gen.watch || gen.daemon) {
+            System.err.println("Options --watch and --daemon are not supported for daemon jobs");
+            return 1;
+        }
+
+        gen.sourceDir = resolve(cwd, gen.sourceDir);
+        gen.targetDir = resolve(cwd, gen.targetDir);
+        gen.reportFile = resolve(cwd, gen.reportFile);
+
+        int errors = gen.build();
+
+        log.info("DONE!");
+
+        if (errors > 0)
+            log.error("ERRORS => {}", errors);
+
+        return errors;
+    }
+
+    private static File resolve(Path cwd, File file) {
+        return file == null || file.isAbsolute() ? file : cwd.resolve(file.toPath()).toFile();
+    }
+
+    /**
+     * Parses command line arguments, prints out usage for incorrect ones.
+     * @param args the arguments.
+     * @return the arguments are correct.
+     */
+    private boolean parse(String[] args) {
+        var parser = new CmdLineParser(this);
+        try {
+            parser.parseArgument(args);
+            return true;
+        } catch (CmdLineException e) {
+            System.err.println(e.getMessage());
+            parser.printUsage(System.err);
+            return false;
+        }
+    }
+
     @Option(required = true, name = "-i", aliases = { "--in" }, usage = "Source directory path")
     private File sourceDir;
     @Option(required = true, name = "-o", aliases = { "--out" }, usage = "Target directory path")
     private File targetDir;
     @Option(required = false, name = "-a", aliases = { "--attribute" }, usage = "Attribute name=value")
     private Map<String, String> attributes;
-
+    @Option(required = false, name = "-t", aliases = { "--threads" }, usage = "Count of parallel converting threads, default 1")
+    private int threads = 1;
+    @Option(required = false, name = "-w", aliases = { "--watch" }, usage = "Watch source changes and convert affected pages")
+    private boolean watch;
+    @Option(required = false, name = "-r", aliases = { "--report" }, usage = "Build report file path, default 'build-report.json' in the target directory")
+    private File reportFile;
+    @Option(required = false, name = "-s", aliases = { "--stream" }, usage = "Streaming HTML post-processing with lower memory usage, for large pages")
+    private boolean stream;
+    @Option(required = false, name = "-z", aliases = { "--gzip" }, usage = "Write pre-compressed '.gz' files near of generated HTML, JS, CSS and SVG")
+    private boolean gzip;
+    @Option(required = false, name = "-b", aliases = { "--bundle" }, usage = "Link to pages deferred script and style bundles with content hashes in names, search stemmers are loaded on demand")
+    private boolean bundle;
+    @Option(required = false, name = "--optimize-images", usage = "Recompress PNG resources, write sizes and lazy loading to images, scaled 'srcset' variants for images with width")
+    private boolean optimizeImages;
+    @Option(required = false, name = "--only", usage = "Glob of source paths, relative to the source directory, for converting only a subset of pages, e.g. 'module/**'")
+    private String only;
+    @Option(required = false, name = "-e", aliases = { "--check-external" }, usage = "Check external HTTP links, results are cached in the target directory for a day")
+    private boolean checkExternal;
+    @Option(required = false, name = "--external-host-requests", usage = "Max count of parallel requests to a host during external links checking, default 2")
+    private int externalHostRequests = 2;
+    @Option(required = false, name = "-d", aliases = { "--daemon" }, usage = "Run as a daemon, converting jobs submitted by org.pzdcdoc.Client with warm Asciidoctor")
+    private boolean daemon;
+    @Option(required = false, name = "--socket", usage = "Daemon socket path, default 'pzdcdoc-<user>/daemon.sock' in the temporary directory")
+    private File socket;
+    @Option(required = false, name = "--idle-timeout", usage = "Daemon idle timeout in minutes, default 30")
+    private int idleTimeout = 30;
+
+    /** Pool of Asciidoctor instances, each of them may be used only by a single thread at once. */
+    private final BlockingQueue<Asciidoctor> asciidoctors;
+    /** Executor for parallel conversion, null for sequential one. */
+    private ExecutorService executor;
+    /** Pages submitted to the executor. */
+    private final List<Future<?>> conversions = new ArrayList<>();
     /** Cached ToC from index.adoc for injecting everywhere. */
-    private Element toc;
+    private volatile ToC toc;
     /** Search supporting object. */
-    private final Search search = new Search();
+    private Search search;
+    /** Links of generated pages. */
+    private Links links;
+    /** External links checker, null if they aren't checked. */
+    private ExternalLinks external;
+    /** Resources, referenced from pages. */
+    private Resources resources;
+    /** Images optimization, null if it is disabled. */
+    private Images images;
+    /** Bundles of the main scripts, search stemmers and stylesheets, null without bundling. */
+    private Bundle scriptBundle, searchBundle, styleBundle;
+    /** Matcher of the converted pages subset, null for all the pages. */
+    private PathMatcher onlyMatcher;
     /** Processing errors counter. */
-    private int errors;
+    private final AtomicInteger errors = new AtomicInteger();
+    /** Build manifest for incremental conversion. */
+    private Manifest manifest;
+    /** Page converted by the current thread. */
+    private final ThreadLocal<Manifest.Page> page = new ThreadLocal<>();
+    /** Build instrumentation. */
+    private Report report;
+    /** Asynchronous tasks of the page converted by the current thread, e.g. diagram renders. */
+    private final ThreadLocal<List<CompletableFuture<?>>> pending = ThreadLocal.withInitial(ArrayList::new);
 
     private Generator() throws Exception {
+        this(new LinkedBlockingQueue<>());
+        asciidoctors.add(createAsciidoctor());
+    }
+
+    /**
+     * Constructor with existing Asciidoctor instances.
+     * @param asciidoctors the instances pool.
+     */
+    private Generator(BlockingQueue<Asciidoctor> asciidoctors) {
+        this.asciidoctors = asciidoctors;
+    }
+
+    /**
+     * Creates an Asciidoctor instance with registered extensions, the same way for conversion and benchmarks.
+     * @return the instance.
+     */
+    static Asciidoctor createAsciidoctor() {
+        Asciidoctor asciidoctor = Factory.create();
+
         // https://github.com/asciidoctor/asciidoctorj/blob/v2.1.0/docs/integrator-guide.adoc
         JavaExtensionRegistry javaExtensionRegistry = asciidoctor.javaExtensionRegistry();
         javaExtensionRegistry.inlineMacro(new JavaDocLink());
@@ -126,29 +302,205 @@ public class Generator {
         javaExtensionRegistry.blockMacro(new DrawIOBlock());
         javaExtensionRegistry.block(new Snippet());
         //javaExtensionRegistry.treeprocessor(new Treeprocessor());
+
+        return asciidoctor;
     }
 
     /**
      * Increments error's counter.
      */
     public void error() {
-        errors++;
+        errors.incrementAndGet();
+
+        Manifest.Page page = this.page.get();
+        if (page != null)
+            page.setErrors(page.getErrors() + 1);
+    }
+
+    /**
+     * Registers an input file of the currently converted page.
+     * Changes of the file cause converting of the page again.
+     * @param path the file path.
+     */
+    public void input(Path path) {
+        Manifest.Page page = this.page.get();
+        if (page != null)
+            manifest.input(page, path);
+    }
+
+    /**
+     * Registers an output file of the currently converted page.
+     * Absence of the file causes converting of the page again.
+     * @param path the file path.
+     */
+    public void output(Path path) {
+        Manifest.Page page = this.page.get();
+        if (page != null)
+            manifest.output(page, path);
+    }
+
+    /**
+     * Starts a timer of a build phase, related to the currently converted page.
+     * @param phase the phase.
+     * @return the timer, has to be closed at the end of the phase.
+     */
+    public Report.Timer time(Report.Phase phase) {
+        return report.time(phase);
+    }
+
+    /**
+     * Registers an asynchronous task of the currently converted page.
+     * The page is written after the task is done.
+     * @param task the task.
+     */
+    public void pending(CompletableFuture<?> task) {
+        pending.get().add(task);
+    }
+
+    /**
+     * Waits for asynchronous tasks of the currently converted page.
+     */
+    private void awaitPending() {
+        List<CompletableFuture<?>> tasks = pending.get();
+        try {
+            CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            log.error(e.getMessage(), e);
+            error();
+        } finally {
+            tasks.clear();
+        }
+    }
+
+    /**
+     * Runs the generation with the links checking and writes the build report.
+     * @return count of errors.
+     * @throws Exception
+     */
+    private int build() throws Exception {
+        report = new Report();
+
+        int errors = process();
+        errors += check();
+
+        report.write(reportFile != null ? reportFile : new File(targetDir, Report.FILE), errors);
+
+        return errors;
     }
 
     private int process() throws Exception {
         if (!sourceDir.isDirectory())
             throw new IllegalArgumentException("Incorrect source directory: " + sourceDir);
+        if (threads < 1)
+            throw new IllegalArgumentException("Incorrect threads count: " + threads);
+
+        toc = null;
+        search = new Search(targetDir);
+        external = checkExternal ? new ExternalLinks(new File(targetDir, ExternalLinks.FILE), EXTERNAL_TTL, externalHostRequests) : null;
+        links = new Links(external);
+        images = optimizeImages ? new Images(targetDir.toPath().resolve(DIR_RES), new File(targetDir, Images.FILE), report) : null;
+        resources = new Resources(targetDir.toPath().resolve(DIR_RES), report, images);
+        errors.set(0);
+        manifest = Manifest.load(sourceDir, targetDir);
+        // not changed pages take their search terms from the previous build
+        if (!search.hasPrevious() && manifest.convertAll())
+            log.warn("Not found search index of the previous build, converting all the pages");
+        onlyMatcher = only != null ? FileSystems.getDefault().getPathMatcher("glob:" + only) : null;
+
+        if (bundle) {
+            scriptBundle = new Bundle("pzdcdoc", ".js", "scripts", SCRIPTS_MAIN);
+            searchBundle = new Bundle("pzlunr", ".js", "scripts", SCRIPTS_SEARCH);
+            styleBundle = new Bundle("pzdcdoc", ".css", "stylesheets", STYLESHEETS_BUNDLE);
+        }
+
+        if (threads > 1)
+            executor = Executors.newFixedThreadPool(threads);
+        try {
+            Map<String, Object> attributes = new HashMap<>();
+            // pages are converted again after switching of bundling
+            if (bundle)
+                attributes.put(ATTR_BUNDLE, "true");
+            if (optimizeImages)
+                attributes.put(ATTR_OPTIMIZE_IMAGES, "true");
+            if (stream)
+                attributes.put(ATTR_STREAM, "true");
+            process(sourceDir, targetDir, -1, attributes);
+            awaitConversions();
+        } finally {
+            errors.addAndGet(resources.await());
+            if (images != null)
+                errors.addAndGet(images.await());
+            if (executor != null)
+                executor.shutdownNow();
+        }
+
+        manifest.deleteRemoved();
+        // not all the pages are known in a subset build
+        if (onlyMatcher == null)
+            resources.deleteUnused(manifest.outputs());
+        manifest.write();
 
-        process(sourceDir, targetDir, -1, new HashMap<>());
         copyScriptsAndStyles();
         deleteTmpFiles();
+
+        if (gzip)
+            errors.addAndGet(new Gzip(report).compressDir(targetDir.toPath()));
+
+        int errors = this.errors.get();
         if (errors > 0)
             log.error("PROC ERRORS => {}", errors);
         return errors;
     }
 
+    /**
+     * Waits finishing of all the pages, submitted for parallel conversion.
+     * @throws Exception the first occurred conversion exception.
+     */
+    private void awaitConversions() throws Exception {
+        for (Future<?> conversion : conversions) {
+            try {
+                conversion.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Exception cause)
+                    throw cause;
+                throw e;
+            }
+        }
+        conversions.clear();
+    }
+
+    /**
+     * Watches source changes and runs the incremental generation.
+     * Asciidoctor instances are kept between the generations.
+     * @throws Exception
+     */
+    private void watch() throws Exception {
+        try (var watcher = new Watcher(sourceDir.toPath(), targetDir.toPath())) {
+            while (!Thread.currentThread().isInterrupted()) {
+                watcher.register(manifest.inputDirs());
+
+                log.info("Watching for changes in: {}", sourceDir);
+                log.info("Changed: {}", watcher.await());
+
+                try {
+                    int errors = build();
+                    if (errors > 0)
+                        log.error("ERRORS => {}", errors);
+                } catch (Exception e) {
+                    log.error(e.getMessage(), e);
+                }
+            }
+        }
+    }
+
     private int check() throws Exception {
-        int errors = new Links().checkDir(targetDir);
+        int errors;
+        try (var timer = report.time(Report.Phase.CHECK)) {
+            // not converted pages are not checked
+            errors = onlyMatcher != null ? links.checkPages() : links.checkDir(targetDir);
+            if (external != null)
+                errors += external.check();
+        }
         if (errors > 0)
             log.error("CHECK ERRORS => {}", errors);
         return errors;
@@ -187,54 +539,181 @@ public class Generator {
                 process(file, new File(target, file.getName()), depth + 1, attributes);
         } else {
             if (sourceName.endsWith(EXT_ADOC)) {
-                log.info("Processing: {}", source);
-
-                Path targetPath = Paths.get(target.getPath().replace(EXT_ADOC, EXT_HTML));
-                String pathToRoot = StringUtils.repeat("../", depth);
-
-                var attrs = Attributes.builder()
-                    .backend("html5")
-                    .stylesDir(StringUtils.repeat("../", depth) + DIR_RES)
-                    .styleSheetName(ASCIIDOCTOR_DEFAULT_CSS)
-                    .linkCss(true)
-                    .sourceHighlighter("coderay")
-                    .icons(Attributes.FONT_ICONS)
-                    .tableOfContents(true)
-                    .setAnchors(true)
-                    .linkAttrs(true)
-                    .build();
-
-                attrs.setAttribute("last-update-label", "Powered by <a target='_blank' href='https://pzdcdoc.org'>PzdcDoc</a> at: ");
-                attrs.setAttribute(ATTR_SOURCE, source);
-                attrs.setAttribute(ATTR_TARGET, targetPath);
-                attrs.setAttribute(ATTR_GENERATOR, this);
-                attrs.setAttribute(ATTR_PATH_TO_ROOT, pathToRoot);
-
-                attrs.setAttributes(attributes);
-
-                var options = Options.builder()
-                    .toFile(false)
-                    .safe(SafeMode.UNSAFE)
-                    .attributes(attrs)
-                    .standalone(true)
-                    .build();
-
-                String html = asciidoctor.convertFile(source, options);
-
-                if (toc != null || !extractToC(html, targetPath))
-                    html = correctHtmlAndCopyResources(source.toPath(), html, targetPath, pathToRoot, new SourceLink(attributes));
+                // the root index with ToC is always converted
+                if (onlyMatcher != null && !(depth == 0 && containsIndex(sourceName))
+                        && !onlyMatcher.matches(sourceDir.toPath().relativize(source.toPath()))) {
+                    keep(target);
+                    return;
+                }
+
+                // ToC has to be extracted before injecting it to other pages
+                if (executor == null || toc == null) {
+                    convert(source, target, depth, attributes);
+                    return;
+                }
+
+                final Map<String, Object> pageAttributes = attributes;
+                conversions.add(executor.submit(() -> {
+                    convert(source, target, depth, pageAttributes);
+                    return null;
+                }));
+            }
+        }
+    }
+
+    /**
+     * Keeps a page, not matching to the converted subset, from the previous build.
+     * @param target the target file.
+     */
+    private void keep(File target) {
+        Path targetPath = Paths.get(target.getPath().replace(EXT_ADOC, EXT_HTML));
+        String ref = Utils.pathToUnix(targetDir.toPath().relativize(targetPath).toString());
+        if (manifest.keep(ref))
+            search.keepArticle(ref);
+        else
+            log.debug("Not converted: {}", target);
+    }
+
+    /**
+     * Converts a single '.adoc' file to HTML.
+     * @param source the source file.
+     * @param target the target file.
+     * @param depth depth of the file related to the source root directory.
+     * @param attributes inherited attributes.
+     * @throws Exception
+     */
+    private void convert(File source, File target, int depth, Map<String, Object> attributes) throws Exception {
+        Path targetPath = Paths.get(target.getPath().replace(EXT_ADOC, EXT_HTML));
+        String ref = Utils.pathToUnix(targetDir.toPath().relativize(targetPath).toString());
+
+        // the ToC from the index file is always extracted
+        if (toc != null && manifest.upToDate(ref, attributes, toc.getHash()) != null) {
+            log.info("Not changed: {}", source);
+            search.keepArticle(ref);
+            report.notChanged();
+            return;
+        }
+
+        log.info("Processing: {}", source);
+
+        Manifest.Page page = new Manifest.Page();
+        manifest.input(page, source.toPath());
+        addIncludes(source.toPath(), page);
+        manifest.output(page, targetPath);
+
+        this.page.set(page);
+        report.startPage(ref);
+        try {
+            convert(source, target, targetPath, depth, attributes);
+        } finally {
+            this.page.remove();
+            report.endPage(Files.exists(targetPath) ? Files.size(targetPath) : 0);
+        }
+
+        manifest.put(ref, page, attributes, toc == null ? null : toc.getHash());
+    }
 
+    /**
+     * Adds recursively included files as page's inputs.
+     * Includes with attributes in paths are not resolved.
+     * @param file the source or included file.
+     * @param page the page.
+     * @throws IOException
+     */
+    private void addIncludes(Path file, Manifest.Page page) throws IOException {
+        Matcher m = INCLUDE.matcher(Files.readString(file));
+        while (m.find()) {
+            String path = m.group(1).trim();
+            if (path.contains("{") || path.contains("://"))
+                continue;
+
+            Path include = file.getParent().resolve(path);
+            if (manifest.input(page, include) && Files.isRegularFile(include))
+                addIncludes(include, page);
+        }
+    }
+
+    private void convert(File source, File target, Path targetPath, int depth, Map<String, Object> attributes) throws Exception {
+        String pathToRoot = StringUtils.repeat("../", depth);
+
+        var attrs = Attributes.builder()
+            .backend("html5")
+            .stylesDir(StringUtils.repeat("../", depth) + DIR_RES)
+            .styleSheetName(ASCIIDOCTOR_DEFAULT_CSS)
+            .linkCss(true)
+            .sourceHighlighter("coderay")
+            .icons(Attributes.FONT_ICONS)
+            .tableOfContents(true)
+            .setAnchors(true)
+            .linkAttrs(true)
+            .build();
+
+        attrs.setAttribute("last-update-label", "Powered by <a target='_blank' href='https://pzdcdoc.org'>PzdcDoc</a> at: ");
+        attrs.setAttribute(ATTR_SOURCE, source);
+        attrs.setAttribute(ATTR_TARGET, targetPath);
+        attrs.setAttribute(ATTR_GENERATOR, this);
+        attrs.setAttribute(ATTR_PATH_TO_ROOT, pathToRoot);
+
+        attrs.setAttributes(attributes);
+
+        var options = Options.builder()
+            .toFile(false)
+            .safe(SafeMode.UNSAFE)
+            .attributes(attrs)
+            .standalone(true)
+            .build();
+
+        String html;
+        try (var timer = report.time(Report.Phase.CONVERT)) {
+            html = convertFile(source, options);
+        } finally {
+            awaitPending();
+        }
+
+        // the index file with ToC is always processed in memory
+        if (stream && (toc != null || !containsIndex(targetPath.toString()))) {
+            try (var timer = report.time(Report.Phase.POST_PROCESS)) {
                 FileUtils.forceMkdirParent(target);
+                streamHtmlAndCopyResources(source.toPath(), html, targetPath, pathToRoot, new SourceLink(attributes));
+            }
+            return;
+        }
 
-                try (var writer = FileWriterWithEncoding.builder().setPath(targetPath).setCharset(StandardCharsets.UTF_8).get()) {
-                    writer.write(html);
-                }
+        try (var timer = report.time(Report.Phase.POST_PROCESS)) {
+            if (toc != null || !extractToC(html, targetPath))
+                html = correctHtmlAndCopyResources(source.toPath(), html, targetPath, pathToRoot, new SourceLink(attributes));
+        }
+
+        try (var timer = report.time(Report.Phase.WRITE)) {
+            FileUtils.forceMkdirParent(target);
 
-                return;
+            try (var writer = FileWriterWithEncoding.builder().setPath(targetPath).setCharset(StandardCharsets.UTF_8).get()) {
+                writer.write(html);
             }
         }
     }
 
+    /**
+     * Converts a file using an Asciidoctor instance from the pool.
+     * A missing instance is created, the pool size is limited by the threads count.
+     * @param source the source file.
+     * @param options conversion options.
+     * @return the converted HTML.
+     */
+    private String convertFile(File source, Options options) {
+        Asciidoctor asciidoctor = asciidoctors.poll();
+        if (asciidoctor == null) {
+            log.info("Creating Asciidoctor instance");
+            asciidoctor = createAsciidoctor();
+        }
+
+        try {
+            return asciidoctor.convertFile(source, options);
+        } finally {
+            asciidoctors.add(asciidoctor);
+        }
+    }
+
     private Map<String, Object> loadAttributes(File source, Map<String, Object> attributes) throws DocumentException {
         Path configuration = source.toPath().resolve("pzdcdoc.xml");
         if (configuration.toFile().exists()) {
@@ -260,11 +739,20 @@ public class Generator {
         File rootRes = new File(targetDir, DIR_RES);
         if (!rootRes.exists()) rootRes.mkdirs();
 
+        try (var timer = report.time(Report.Phase.SEARCH)) {
+            search.writeScript(rootRes);
+        }
+
+        if (bundle) {
+            scriptBundle.write(rootRes.toPath());
+            searchBundle.write(rootRes.toPath());
+            styleBundle.write(rootRes.toPath());
+            return;
+        }
+
         for (String script : SCRIPTS)
             IOUtils.copy(getClass().getClassLoader().getResourceAsStream("scripts/" + script), new FileOutputStream(new File(rootRes, script)));
 
-        search.writeScript(rootRes);
-
         for (String style : STYLESHEETS)
             IOUtils.copy(getClass().getClassLoader().getResourceAsStream("stylesheets/" + style), new FileOutputStream(new File(rootRes, style)));
     }
@@ -295,13 +783,18 @@ public class Generator {
             return false;
         }
 
-        toc = Jsoup.parse(html, StandardCharsets.UTF_8.name());
-        toc = toc.select("body").tagName("div").get(0);
+        Document jsoup = Jsoup.parse(html, StandardCharsets.UTF_8.name());
+        links.addPage(target, jsoup);
+
+        Element toc = jsoup.select("body").tagName("div").get(0);
         // remove class="article"
         toc.clearAttributes();
         // add search field
         search.injectField(toc.select("#header"));
 
+        // serialized once, immutable after and safe for sharing between threads
+        this.toc = new ToC(toc);
+
         return true;
     }
 
@@ -312,34 +805,116 @@ public class Generator {
     private String correctHtmlAndCopyResources(Path source, String html, Path target, String pathToRoot, SourceLink linkToSource) throws Exception {
         log.debug("correctHtml targetPath: {}, pathToRoot: {}", target, pathToRoot);
 
-        Document jsoup = Jsoup.parse(html);
-        Element head = jsoup.selectFirst("head");
-        Element title = head.selectFirst("title");
+        PageContent content = new PageContent();
+        Document doc = Jsoup.parse(html);
+        HtmlStream.outputSettings(doc);
+        html = correctHtmlAndCopyResources(source, doc, target, pathToRoot, linkToSource, content);
+        addPageContent(target, content);
 
-        // add content to search index
-        if (search != null) {
-            final String relativePath = targetDir.toPath().relativize(target).toString();
-            search.addArticle(new Search.Article(relativePath, title.text(), jsoup.text()));
+        return html;
+    }
+
+    /**
+     * Streaming variant of {@link #correctHtmlAndCopyResources(Path, String, Path, String, SourceLink)},
+     * the page is processed and written by blocks without building of the whole document.
+     */
+    private void streamHtmlAndCopyResources(Path source, String html, Path target, String pathToRoot, SourceLink linkToSource) throws Exception {
+        log.debug("streamHtml targetPath: {}, pathToRoot: {}", target, pathToRoot);
+
+        PageContent content = new PageContent();
+        try (var out = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+            HtmlStream.write(new StringReader(html), out, new HtmlStream.Handler() {
+                @Override
+                public void start(Element container) {
+                    if (container.hasAttr("id"))
+                        content.ids.add(container.id());
+                }
+
+                @Override
+                public String chunk(Element chunk) throws Exception {
+                    return correctHtmlAndCopyResources(source, chunk, target, pathToRoot, linkToSource, content);
+                }
+            });
+        }
+        addPageContent(target, content);
+    }
+
+    /**
+     * Corrects a page or its part and collects the page content.
+     * @param source the page source.
+     * @param root the page document or a part of it.
+     * @param target the page target.
+     * @param pathToRoot relative path to the target root directory.
+     * @param linkToSource link to source injector.
+     * @param content the collected page content.
+     * @return the serialized HTML.
+     */
+    private String correctHtmlAndCopyResources(Path source, Element root, Path target, String pathToRoot, SourceLink linkToSource,
+            PageContent content) {
+        content.text.append(content.text.isEmpty() ? "" : " ").append(root.text());
+
+        Element head = root.selectFirst("head");
+        if (head != null) {
+            Element title = head.selectFirst("title");
+            content.title = title.text();
+
+            // add html title suffix
+            String siteTitle = attributes == null ? null : attributes.get(ATTR_SITE_TITLE);
+            if (siteTitle != null)
+                title.text(title.text() + " | " + siteTitle);
         }
 
-        // add html title suffix
-        String siteTitle = attributes == null ? null : attributes.get(ATTR_SITE_TITLE);
-        if (siteTitle != null)
-            title.text(title.text() + " | " + siteTitle);
+        copyResources(root, source, pathToRoot);
 
-        copyResources(jsoup, source, target);
+        if (head != null)
+            injectScriptsAndStyles(head, pathToRoot);
 
-        injectScriptsAndStyles(head, pathToRoot);
+        Element pageToC = correctToC(root);
 
-        correctToC(jsoup, target, pathToRoot);
+        linkToSource.inject(root, sourceDir.toPath().relativize(source).toString());
 
-        linkToSource.inject(jsoup, sourceDir.toPath().relativize(source).toString());
+        content.ids.addAll(Links.getIds(root));
+        for (Link link : Links.getCheckedLinks(root))
+            content.links.add(link.get());
+        if (external != null)
+            content.links.addAll(Links.getUrls(root));
 
-        return jsoup.toString();
+        if (pageToC == null)
+            return root.outerHtml();
+
+        content.ids.addAll(toc.getIds());
+        content.links.addAll(toc.getLinks(pathToRoot));
+        for (Link link : Links.getCheckedLinks(pageToC))
+            content.links.add(link.get());
+
+        // the global ToC is spliced to the serialized page without parsing
+        return StringUtils.replaceOnce(root.outerHtml(), "<!--" + TOC_PLACEHOLDER + "-->",
+            toc.render(target, pathToRoot, pageToC.children().isEmpty() ? null : pageToC.html()));
     }
 
-    private void copyResources(Document jsoup, Path source, Path target) throws IOException {
-        for (Link link : Links.getLinks(jsoup)) {
+    /**
+     * Adds the collected page content to the search index and the links.
+     * @param target the page target.
+     * @param content the content.
+     */
+    private void addPageContent(Path target, PageContent content) {
+        // add content to search index
+        if (search != null) {
+            final String relativePath = targetDir.toPath().relativize(target).toString();
+            search.addArticle(new Search.Article(relativePath, content.title, content.text.toString()));
+        }
+
+        links.addPage(target, content.ids, content.links);
+    }
+
+    /**
+     * Places referenced files to the content addressed resources directory and corrects the references.
+     * @param root the page document or a part of it.
+     * @param source the page source.
+     * @param pathToRoot relative path to the target root directory.
+     */
+    private void copyResources(Element root, Path source, String pathToRoot) {
+        for (Link link : Links.getLinks(root)) {
             String href = link.get();
 
             href = StringUtils.substringBefore(href, "#");
@@ -352,64 +927,75 @@ public class Generator {
                 continue;
             }
 
-            String relativePath = DIR_RES + "/" + Paths.get(href).getFileName();
-            link.set(relativePath);
+            String name = resources.add(resSrc.toPath());
+            link.set(pathToRoot + DIR_RES + "/" + name);
+            // the original file name for downloading
+            link.setDownload(resSrc.getName());
+
+            input(resSrc.toPath());
+            output(targetDir.toPath().resolve(DIR_RES).resolve(name));
 
-            File resTarget = target.getParent().resolve(relativePath).toFile();
-            log.info("Copying {} to {}", resSrc, resTarget);
-            FileUtils.forceMkdirParent(resTarget);
-            if (resTarget.exists() && resTarget.lastModified() == resSrc.lastModified())
-                log.info("Not changed.");
-            else
-                FileUtils.copyFile(resSrc, resTarget);
+            if (images != null && "img".equals(link.getNode().nodeName()))
+                for (String variant : images.process(link.getNode(), resSrc.toPath(), name, pathToRoot + DIR_RES + "/"))
+                    output(targetDir.toPath().resolve(DIR_RES).resolve(variant));
         }
     }
 
     private void injectScriptsAndStyles(Element head, String pathToRoot) {
         var pathPrefix = pathToRoot + DIR_RES  + "/";
+
+        if (bundle) {
+            // stylesheets, linked by Asciidoctor, are replaced by the bundle
+            for (Element link : head.select("link[rel=stylesheet]"))
+                if (ArrayUtils.contains(STYLESHEETS_BUNDLE, StringUtils.substringAfterLast(link.attr("href"), "/")))
+                    link.remove();
+            head.append("<link rel='stylesheet' href='" + pathPrefix + styleBundle.getName() + "'>");
+            head.append("<script defer src='" + pathPrefix + scriptBundle.getName() + "' data-lunr='" + pathPrefix + searchBundle.getName() + "'></script>");
+            head.append("<script defer src='" + pathPrefix + Search.SCRIPT + "'></script>");
+            return;
+        }
+
         for (String script : SCRIPTS_INJECT)
             head.append("<script src='" + pathPrefix + script + "'/>");
         for (String css : STYLESHEETS_INJECT)
             head.append("<link rel='stylesheet' href='" + pathPrefix + css + "'>");
     }
 
-    private void correctToC(Document jsoup, Path target, String pathToRoot) {
-        Element pageToC = jsoup.selectFirst("#toc.toc");
+    /**
+     * Replaces the page's ToC by placeholder of the global one.
+     * @param root the page document or a part of it.
+     * @return element with the page's own ToC, injected to the global ToC, or {@code null} if the page has no ToC.
+     */
+    private Element correctToC(Element root) {
+        Element pageToC = root.selectFirst("#toc.toc");
         if (pageToC == null)
-            return;
+            return null;
 
         // set class 'toc2' for body to support it
-        jsoup.selectFirst("body").addClass("toc2");
+        root.ownerDocument().body().addClass("toc2");
         // extract page toc's content
-        Element pageToCRootUl = pageToC.selectFirst(".sectlevel1").clone();
+        Element result = new Element("div");
+        Element pageToCRootUl = pageToC.selectFirst(".sectlevel1");
+        if (pageToCRootUl != null)
+            result.appendChild(pageToCRootUl);
+
         pageToC
             // convert page toc to toc2
             .attr("class", "toc2")
-            // replace toc2's content by toc
-            .html(toc.toString());
+            // toc2's content is replaced by toc after serialization
+            .empty()
+            .appendChild(new Comment(TOC_PLACEHOLDER));
 
-        // going through toc links
-        for (Element a : pageToC.select("a")) {
-            Link link = new Link(a);
-            if (link.isExternalReference())
-                continue;
-
-            String href = link.get();
-
-            if (target.endsWith(href)) {
-                a.addClass("current");
-                // injecting page ToC into the global ToC
-                if (pageToCRootUl != null)
-                    a.after(pageToCRootUl);
-            }
-            // correct link URL related to the actual page
-            link.set(pathToRoot + href);
-            a.attr("title", a.text());
-        }
+        return result;
+    }
 
-        // add link to root on title
-        Element title = pageToC.selectFirst("#header h1");
-        if (title != null)
-            title.html("<a href='" + pathToRoot + "index.html'>" + title.text() + "</a>");
+    /**
+     * Page content, collected during post-processing.
+     */
+    private static class PageContent {
+        private final StringBuilder text = new StringBuilder();
+        private final Set<String> ids = new HashSet<>();
+        private final List<String> links = new ArrayList<>();
+        private String title;
     }
 }
@@ -0,0 +1,160 @@
+package org.pzdcdoc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Pre-compressed '.gz' siblings of generated text files, served by HTTP servers without compressing on the fly,
+ * e.g. nginx with option 'gzip_static'.
+ *
+ * @author Shamil Vakhitov
+ */
+class Gzip {
+    private static final Logger log = LogManager.getLogger();
+
+    static final String EXT = ".gz";
+    /** Extensions of compressed files. */
+    private static final Set<String> EXTENSIONS = Set.of("html", "js", "css", "svg");
+    /** Compressed files, not smaller than the ratio of the original size, are not written. */
+    private static final double MAX_RATIO = 0.9;
+    /** GZIP header: magic, deflate method, no flags and time, maximal compression, unknown OS. */
+    private static final byte[] HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 2, (byte) 0xff };
+
+    private final Report report;
+
+    /**
+     * Constructor.
+     * @param report the build report.
+     */
+    Gzip(Report report) {
+        this.report = report;
+    }
+
+    /**
+     * Compresses in parallel all the suitable files in a directory tree.
+     * Files with '.gz' sibling, modified after them, are skipped.
+     * '.gz' files of removed ones, e.g. pages, resources or search shards, are deleted.
+     * @param dir the directory.
+     * @return count of errors.
+     * @throws IOException
+     */
+    int compressDir(Path dir) throws IOException {
+        log.info("Compressing files in: {}", dir);
+
+        List<Path> files;
+        List<Path> gzs;
+        try (Stream<Path> tree = Files.walk(dir)) {
+            List<Path> all = tree.filter(Files::isRegularFile).toList();
+            files = all.stream().filter(file -> compressed(file.getFileName().toString())).toList();
+            gzs = all.stream().filter(file -> {
+                String name = file.getFileName().toString();
+                return name.endsWith(EXT) && compressed(StringUtils.removeEnd(name, EXT));
+            }).toList();
+        }
+
+        for (Path gz : gzs) {
+            Path file = gz.resolveSibling(StringUtils.removeEnd(gz.getFileName().toString(), EXT));
+            if (!Files.exists(file)) {
+                log.debug("Deleting of removed file: {}", gz);
+                Files.deleteIfExists(gz);
+            }
+        }
+
+        AtomicInteger errors = new AtomicInteger();
+        files.parallelStream().forEach(file -> {
+            try {
+                compress(file);
+            } catch (Exception e) {
+                log.error(e.getMessage(), e);
+                errors.incrementAndGet();
+            }
+        });
+        return errors.get();
+    }
+
+    private static boolean compressed(String name) {
+        return EXTENSIONS.contains(StringUtils.substringAfterLast(name, "."));
+    }
+
+    /**
+     * Compresses a file with the maximal level.
+     * @param file the file.
+     */
+    private void compress(Path file) {
+        Path gz = file.resolveSibling(file.getFileName() + EXT);
+        try (var timer = report.time(Report.Phase.GZIP)) {
+            if (Files.exists(gz) && Files.getLastModifiedTime(gz).compareTo(Files.getLastModifiedTime(file)) >= 0) {
+                log.debug("Not changed: {}", gz);
+                return;
+            }
+
+            byte[] data = Files.readAllBytes(file);
+            byte[] bytes = gzip(data);
+
+            if (bytes.length >= data.length * MAX_RATIO) {
+                log.debug("Not compressible: {}", file);
+                Files.deleteIfExists(gz);
+                return;
+            }
+
+            log.debug("Writing: {}", gz);
+            // a partially written file must not be served
+            Path tmp = gz.resolveSibling(gz.getFileName() + ".tmp");
+            Files.write(tmp, bytes);
+            Files.move(tmp, gz, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            report.bytes(bytes.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Compresses data to GZIP format with the maximal level.
+     * @param data the data.
+     * @return the compressed data.
+     */
+    static byte[] gzip(byte[] data) {
+        var deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+
+            var result = new ByteArrayOutputStream(data.length / 2);
+            result.writeBytes(HEADER);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished())
+                result.write(buffer, 0, deflater.deflate(buffer));
+
+            var crc = new CRC32();
+            crc.update(data);
+            writeInt(result, (int) crc.getValue());
+            writeInt(result, data.length);
+
+            return result.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Writes an integer in little-endian byte order of GZIP trailer.
+     */
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        for (int i = 0; i < 4; i++)
+            out.write(value >>> (8 * i));
+    }
+}
@@ -0,0 +1,156 @@
+package org.pzdcdoc;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
+
+/**
+ * Streaming pass over an HTML page, the page is not kept in memory completely.
+ * Containers, the root, body, content and section elements, are written as start and end tags.
+ * Their child elements are chunks, each one is processed and written after it is parsed and removed from the tree after.
+ * Attributes of a container may be changed during processing of chunks, until its first chunk is written.
+ *
+ * @author Shamil Vakhitov
+ */
+class HtmlStream {
+    /** Classes of section containers, generated by Asciidoctor. */
+    private static final Set<String> CONTAINER_CLASSES = Set.of("sectionbody", "sect0", "sect1", "sect2", "sect3", "sect4", "sect5");
+
+    /**
+     * Processor of a page.
+     */
+    interface Handler {
+        /**
+         * Called before writing of a container's start tag, the container's children are not parsed yet.
+         * @param container the container.
+         */
+        void start(Element container);
+
+        /**
+         * Processes a parsed chunk.
+         * @param chunk the chunk.
+         * @return serialized HTML of the chunk.
+         * @throws Exception
+         */
+        String chunk(Element chunk) throws Exception;
+    }
+
+    private final Writer out;
+    private final Handler handler;
+    /** Containers with written start tags. */
+    private final Set<Element> started = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private HtmlStream(Writer out, Handler handler) {
+        this.out = out;
+        this.handler = handler;
+    }
+
+    /**
+     * Output settings of pages, the same for streaming and in memory processing.
+     * The formatting of Asciidoctor is kept, pretty printing can't be applied to separately written chunks.
+     * @param doc the page document.
+     */
+    static void outputSettings(Document doc) {
+        doc.outputSettings().prettyPrint(false);
+    }
+
+    /**
+     * Processes and writes a page.
+     * @param html the page HTML.
+     * @param out the output.
+     * @param handler the page processor.
+     * @throws Exception
+     */
+    static void write(Reader html, Writer out, Handler handler) throws Exception {
+        new HtmlStream(out, handler).write(html);
+    }
+
+    private void write(Reader html) throws Exception {
+        try (StreamParser parser = new StreamParser(Parser.htmlParser()).parse(html, "")) {
+            Document doc = parser.document();
+            outputSettings(doc);
+            // HTML, appended by the handler, is parsed apart, the parser of the document is busy with the page
+            doc.parser(Parser.htmlParser());
+
+            for (Iterator<Element> it = parser.iterator(); it.hasNext();) {
+                Element el = it.next();
+                if (container(el)) {
+                    start(el);
+                    writeBefore(el, null);
+                    out.write("</" + el.tagName() + ">");
+                    started.remove(el);
+                    el.remove();
+                } else if (el.parent() != null && container(el.parent())) {
+                    String chunk = handler.chunk(el);
+                    start(el.parent());
+                    writeBefore(el.parent(), el);
+                    out.write(chunk);
+                    el.remove();
+                }
+            }
+
+            writeBefore(doc, null);
+        }
+    }
+
+    /**
+     * Checks if an element is a container, all its parents have to be containers as well.
+     * @param el the element.
+     * @return is the element a container.
+     */
+    private static boolean container(Element el) {
+        if (el instanceof Document)
+            return false;
+
+        boolean result = switch (el.normalName()) {
+            case "html", "body" -> true;
+            case "div" -> "content".equals(el.id()) || el.classNames().stream().anyMatch(CONTAINER_CLASSES::contains);
+            default -> false;
+        };
+
+        return result && (el.parent() instanceof Document || el.parent() != null && container(el.parent()));
+    }
+
+    /**
+     * Writes start tags of a container and its parents, if they weren't written yet.
+     * @param el the container.
+     * @throws IOException
+     */
+    private void start(Element el) throws IOException {
+        if (started.contains(el))
+            return;
+
+        Element parent = el.parent();
+        if (!(parent instanceof Document))
+            start(parent);
+        writeBefore(parent, el);
+
+        handler.start(el);
+        out.write("<" + el.tagName() + el.attributes().html() + ">");
+        started.add(el);
+    }
+
+    /**
+     * Writes and removes child nodes of a parent, preceding to a node.
+     * @param parent the parent.
+     * @param node the node or {@code null} for writing all the children.
+     * @throws IOException
+     */
+    private void writeBefore(Element parent, Node node) throws IOException {
+        while (parent.childNodeSize() > 0 && parent.childNode(0) != node) {
+            Node child = parent.childNode(0);
+            out.write(child.outerHtml());
+            child.remove();
+        }
+    }
+}
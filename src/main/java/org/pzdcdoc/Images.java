@@ -0,0 +1,439 @@
+package org.pzdcdoc;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jsoup.nodes.Element;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Optimization of images, referenced from pages.
+ * PNG files are losslessly recompressed, 'img' elements get intrinsic sizes and lazy loading,
+ * for images with 'width' attribute scaled down variants are written and listed in 'srcset'.
+ * The work is done in parallel and cached by content hash names of resources in a file in the target directory.
+ *
+ * @author Shamil Vakhitov
+ */
+class Images {
+    private static final Logger log = LogManager.getLogger();
+
+    static final String FILE = ".pzdcdoc-images.json";
+
+    /** Extensions of images with sizes and variants. */
+    private static final Set<String> EXTENSIONS = Set.of("png", "jpg", "jpeg");
+    /** Pixel densities of scaled variants. */
+    private static final int[] DENSITIES = { 1, 2 };
+    /** Quality of scaled JPEG variants. */
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Path dir;
+    private final File cacheFile;
+    private final Report report;
+    /** Sizes of images by resource names. */
+    private final Map<String, Info> infos = new ConcurrentHashMap<>();
+    /** Writing of scaled variants by their names. */
+    private final Map<String, CompletableFuture<Void>> variants = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     * @param dir the target resources directory.
+     * @param cacheFile the cache file.
+     * @param report the build report.
+     */
+    Images(Path dir, File cacheFile, Report report) {
+        this.dir = dir;
+        this.cacheFile = cacheFile;
+        this.report = report;
+        loadCache();
+    }
+
+    /**
+     * @param name resource name.
+     * @return the resource is recompressed by {@link #optimize(Path, String)}.
+     */
+    boolean isOptimized(String name) {
+        return StringUtils.endsWithIgnoreCase(name, ".png");
+    }
+
+    /**
+     * Writes losslessly recompressed PNG file to the resources directory asynchronously.
+     * The original content is kept, if the recompressed one isn't smaller.
+     * @param file the source file.
+     * @param name the resource name.
+     * @return the writing future.
+     */
+    CompletableFuture<Void> optimize(Path file, String name) {
+        return CompletableFuture.runAsync(() -> {
+            Path target = dir.resolve(name);
+            try (var timer = report.time(Report.Phase.IMAGE)) {
+                Info info = infos.get(name);
+                if (info != null && info.optimized > 0 && Files.exists(target) && Files.size(target) == info.optimized) {
+                    log.debug("Not changed: {}", target);
+                    return;
+                }
+
+                byte[] data = Files.readAllBytes(file);
+                byte[] recompressed = recompress(data);
+                if (recompressed != null && recompressed.length < data.length) {
+                    log.info("Recompressed {} to {}, {} => {} bytes", file, target, data.length, recompressed.length);
+                    data = recompressed;
+                } else
+                    log.info("Copying {} to {}", file, target);
+
+                write(data, target);
+                long size = data.length;
+                infos.compute(name, (key, value) -> value == null ? new Info(0, 0, size) : new Info(value.width, value.height, size));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, Resources.EXECUTOR);
+    }
+
+    /**
+     * Recompresses PNG image with the max compression level, the original metadata is kept.
+     * @param data the image.
+     * @return the recompressed image or {@code null}, if it can't be processed.
+     */
+    static byte[] recompress(byte[] data) {
+        ImageReader reader = ImageIO.getImageReadersByFormatName("png").next();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            reader.setInput(in);
+            IIOImage image = reader.readAll(0, null);
+
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            // the quality of lossless PNG defines the deflate level, 0 - the best compression
+            param.setCompressionQuality(0f);
+
+            var result = new ByteArrayOutputStream(data.length);
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(result)) {
+                writer.setOutput(out);
+                writer.write(null, image, param);
+            }
+            return result.toByteArray();
+        } catch (Exception e) {
+            log.warn("Recompression error: {}", e.toString());
+            return null;
+        } finally {
+            reader.dispose();
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Adds intrinsic sizes, lazy loading and 'srcset' with scaled variants to an image element.
+     * @param img the element.
+     * @param file the source file.
+     * @param name the resource name.
+     * @param pathPrefix the path to the resources directory from the page.
+     * @return names of the written variants.
+     */
+    List<String> process(Element img, Path file, String name, String pathPrefix) {
+        List<String> result = new ArrayList<>();
+
+        if (!img.hasAttr("loading"))
+            img.attr("loading", "lazy");
+
+        String ext = StringUtils.substringAfterLast(name, ".").toLowerCase();
+        if (!EXTENSIONS.contains(ext))
+            return result;
+
+        Info info = info(file, name);
+        if (info == null)
+            return result;
+
+        String widthAttr = img.attr("width");
+        if (widthAttr.isEmpty()) {
+            // only the height is defined
+            if (!img.hasAttr("height")) {
+                img.attr("width", String.valueOf(info.width));
+                img.attr("height", String.valueOf(info.height));
+            }
+            return result;
+        }
+
+        // sizes in percents, units
+        if (!NumberUtils.isDigits(widthAttr))
+            return result;
+        int width = Integer.parseInt(widthAttr);
+        if (width <= 0)
+            return result;
+
+        if (!img.hasAttr("height"))
+            img.attr("height", String.valueOf(Math.round((double) info.height * width / info.width)));
+
+        if (width >= info.width)
+            return result;
+
+        var srcset = new StringBuilder();
+        for (int density : DENSITIES) {
+            int variantWidth = width * density;
+            String variant = name;
+            if (variantWidth < info.width) {
+                variant = variant(name, variantWidth);
+                scale(file, variant, variantWidth);
+                result.add(variant);
+            }
+            if (srcset.length() > 0)
+                srcset.append(", ");
+            srcset.append(pathPrefix).append(variant).append(" ").append(density).append("x");
+            if (variant.equals(name))
+                break;
+        }
+        img.attr("srcset", srcset.toString());
+
+        return result;
+    }
+
+    /**
+     * Name of a scaled variant.
+     * @param name the resource name.
+     * @param width the variant width.
+     * @return the name with the width before the extension.
+     */
+    static String variant(String name, int width) {
+        return StringUtils.substringBeforeLast(name, ".") + "-" + width + "w." + StringUtils.substringAfterLast(name, ".");
+    }
+
+    /**
+     * Sizes of an image, read out of the file header once.
+     * @param file the image file.
+     * @param name the resource name.
+     * @return the sizes or {@code null} for not readable files.
+     */
+    private Info info(Path file, String name) {
+        Info result = infos.get(name);
+        if (result != null && result.width > 0)
+            return result;
+
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                log.warn("Not readable image: {}", file);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in);
+                int width = reader.getWidth(0), height = reader.getHeight(0);
+                return infos.compute(name, (key, value) -> new Info(width, height, value == null ? 0 : value.optimized));
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            log.warn("Image reading error: {}, {}", file, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Writes asynchronously a scaled down variant of an image, an existing variant is not rewritten.
+     * @param file the source file.
+     * @param variant the variant name.
+     * @param width the variant width.
+     */
+    private void scale(Path file, String variant, int width) {
+        variants.computeIfAbsent(variant, key -> CompletableFuture.runAsync(() -> {
+            Path target = dir.resolve(key);
+            if (Files.exists(target)) {
+                log.debug("Not changed: {}", target);
+                return;
+            }
+
+            try (var timer = report.time(Report.Phase.IMAGE)) {
+                log.info("Scaling {} to {}", file, target);
+
+                BufferedImage image = ImageIO.read(file.toFile());
+                if (image == null)
+                    throw new IOException("Not readable image: " + file);
+
+                boolean png = StringUtils.endsWithIgnoreCase(key, ".png");
+                image = scale(image, width, png);
+
+                ImageWriter writer = ImageIO.getImageWritersByFormatName(png ? "png" : "jpeg").next();
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(png ? 0f : JPEG_QUALITY);
+
+                var data = new ByteArrayOutputStream();
+                try (ImageOutputStream out = ImageIO.createImageOutputStream(data)) {
+                    writer.setOutput(out);
+                    writer.write(null, new IIOImage(image, null, null), param);
+                } finally {
+                    writer.dispose();
+                }
+
+                write(data.toByteArray(), target);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, Resources.EXECUTOR));
+    }
+
+    /**
+     * Scales down an image by halving steps for better quality.
+     * @param image the image.
+     * @param width the resulting width.
+     * @param alpha keep transparency.
+     * @return the scaled image.
+     */
+    static BufferedImage scale(BufferedImage image, int width, boolean alpha) {
+        int targetHeight = Math.max(1, (int) Math.round((double) image.getHeight() * width / image.getWidth()));
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage result = image;
+        int w = image.getWidth(), h = image.getHeight();
+        do {
+            w = Math.max(width, w / 2);
+            h = w == width ? targetHeight : Math.max(targetHeight, h / 2);
+
+            BufferedImage step = new BufferedImage(w, h, type);
+            Graphics2D g = step.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                if (!alpha) {
+                    g.setColor(Color.WHITE);
+                    g.fillRect(0, 0, w, h);
+                }
+                g.drawImage(result, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            result = step;
+        } while (w > width);
+
+        return result;
+    }
+
+    private void write(byte[] data, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        // a partially written file must not be taken as a blob
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.write(tmp, data);
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        report.bytes(data.length);
+    }
+
+    /**
+     * Waits for finishing of all the variants writing and stores the cache.
+     * @return count of failed variants.
+     */
+    int await() {
+        int result = 0;
+        for (CompletableFuture<Void> variant : new ArrayList<>(variants.values())) {
+            try {
+                variant.join();
+            } catch (Exception e) {
+                log.error(e.getMessage(), e);
+                result++;
+            }
+        }
+        writeCache();
+        return result;
+    }
+
+    private void loadCache() {
+        if (cacheFile.exists()) {
+            try {
+                infos.putAll(MAPPER.readValue(cacheFile, new TypeReference<Map<String, Info>>() {}));
+            } catch (Exception e) {
+                log.error("Ignoring incorrect images cache: " + cacheFile, e);
+            }
+        }
+    }
+
+    private void writeCache() {
+        log.info("Writing images cache: {}", cacheFile);
+        try {
+            MAPPER.writeValue(cacheFile, new TreeMap<>(infos));
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Cached image information.
+     */
+    public static class Info {
+        private int width;
+        private int height;
+        private long optimized;
+
+        public Info() {}
+
+        private Info(int width, int height, long optimized) {
+            this.width = width;
+            this.height = height;
+            this.optimized = optimized;
+        }
+
+        /**
+         * @return intrinsic width in pixels, 0 - unknown.
+         */
+        public int getWidth() {
+            return width;
+        }
+
+        public void setWidth(int width) {
+            this.width = width;
+        }
+
+        /**
+         * @return intrinsic height in pixels.
+         */
+        public int getHeight() {
+            return height;
+        }
+
+        public void setHeight(int height) {
+            this.height = height;
+        }
+
+        /**
+         * @return size of the recompressed file in bytes, 0 - not recompressed yet.
+         */
+        public long getOptimized() {
+            return optimized;
+        }
+
+        public void setOptimized(long optimized) {
+            this.optimized = optimized;
+        }
+    }
+}
@@ -3,7 +3,7 @@ package org.pzdcdoc;
 import org.jsoup.nodes.Element;
 
 /**
- * HTML reference object: a, img.
+ * HTML reference object: a, img, link, script, source, video.
  *
  * @author Shamil Vakhitov
  */
@@ -17,7 +17,14 @@ class Link {
      */
     Link(Element node) {
         this.node = node;
-        this.attrName = "a".equals(node.nodeName()) ? "href" : "src";
+        this.attrName = "a".equals(node.nodeName()) || "link".equals(node.nodeName()) ? "href" : "src";
+    }
+
+    /**
+     * @return the HTML element.
+     */
+    public Element getNode() {
+        return node;
     }
 
     /**
@@ -36,6 +43,15 @@ class Link {
         node.attr(attrName, value);
     }
 
+    /**
+     * Sets file name for downloading of a referenced file, only for 'a' nodes.
+     * @param fileName the file name.
+     */
+    public void setDownload(String fileName) {
+        if ("a".equals(node.nodeName()))
+            node.attr("download", fileName);
+    }
+
     /**
      * Is the reference points to an external resource: URL, mail
      * @return is the reference external or not
@@ -45,7 +61,16 @@ class Link {
         return
             href.startsWith("#_") ||
             href.startsWith("mailto:") ||
-            // TODO: Check also.
+            // HTTP URLs are checked by ExternalLinks
             href.contains("://");
     }
+
+    /**
+     * Is the reference an HTTP URL.
+     * @param href the reference.
+     * @return is the reference HTTP or HTTPS URL.
+     */
+    public static boolean isUrl(String href) {
+        return href.startsWith("http://") || href.startsWith("https://");
+    }
 }
\ No newline at end of file
@@ -1,12 +1,19 @@
 package org.pzdcdoc;
 
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -22,41 +29,148 @@ import org.jsoup.nodes.Element;
 class Links {
     private static final Logger log = LogManager.getLogger();
 
-    private int errors;
+    /** Elements with references to files, copied as resources. */
+    private static final String SELECTOR_RESOURCES = "a, img";
+    /** Elements with checked references, including scripts, styles and media. */
+    private static final String SELECTOR_CHECKED = "a, img, link[href], script[src], source[src], video[src]";
+
+    /** Anchor IDs of the files, loaded once. */
+    private final Map<Path, Set<String>> ids = new ConcurrentHashMap<>();
+    /** Links of the HTML files. */
+    private final Map<Path, List<String>> links = new ConcurrentHashMap<>();
+
+    /** Checker of external links, null if they aren't checked. */
+    private final ExternalLinks external;
 
     /** Constructor */
     Links() {
+        this(null);
+    }
+
+    /**
+     * Constructor.
+     * @param external checker of external links, may be {@code null}.
+     */
+    Links(ExternalLinks external) {
+        this.external = external;
+    }
+
+    /**
+     * Adds a generated page, kept in memory, for avoiding parsing of the written file again.
+     * @param file the page file.
+     * @param doc the page document.
+     */
+    void addPage(Path file, Document doc) {
+        addPage(file, getIds(doc), hrefs(doc));
+        if (external != null)
+            external.add(file.toAbsolutePath().normalize(), getUrls(doc));
+    }
+
+    /**
+     * Adds a generated page with anchor IDs and links, collected during its processing.
+     * @param file the page file.
+     * @param ids the anchor IDs.
+     * @param links the links, HTTP URLs are passed to the external links checker.
+     */
+    void addPage(Path file, Set<String> ids, List<String> links) {
+        file = file.toAbsolutePath().normalize();
+        this.ids.put(file, ids);
+
+        List<String> internal = new ArrayList<>(links.size());
+        List<String> urls = new ArrayList<>();
+        for (String link : links)
+            (Link.isUrl(link) ? urls : internal).add(link);
+        this.links.put(file, internal);
+
+        if (external != null)
+            external.add(file, urls);
     }
 
     /**
      * Checks all the files in the dir.
+     * Not added pages are read and parsed only once, after links of files are checked in parallel.
      * @param dir
      * @return count of errors.
      * @throws Exception
      */
     int checkDir(File dir) throws Exception {
         log.info("Start checking");
-        errors = 0;
-        checkFile(dir);
-        return errors;
+
+        List<Path> files;
+        try (Stream<Path> tree = Files.walk(dir.toPath())) {
+            files = tree
+                .filter(file -> file.getFileName().toString().endsWith(".html"))
+                .map(file -> file.toAbsolutePath().normalize())
+                .sorted()
+                .toList();
+        }
+
+        files.parallelStream()
+            .filter(file -> !links.containsKey(file))
+            .forEach(file -> links.put(file, load(file)));
+
+        return check(files);
     }
 
-    private void checkFile(File file) throws Exception {
-        if (file.isDirectory()) {
-            for (File child : file.listFiles())
-                checkFile(child);
-            return;
+    /**
+     * Checks only the added pages, anchor IDs of referenced not added files are read from the disk.
+     * @return count of errors.
+     */
+    int checkPages() {
+        log.info("Start checking of added pages");
+        return check(links.keySet().stream().sorted().toList());
+    }
+
+    /**
+     * Checks links of files in parallel.
+     * @param files the files with loaded links.
+     * @return count of errors.
+     */
+    private int check(List<Path> files) {
+        List<List<String>> errors = files.parallelStream()
+            .map(file -> checkFile(file, links.get(file)))
+            .toList();
+
+        // reporting in the files order
+        int result = 0;
+        for (int i = 0; i < files.size(); i++) {
+            log.info("Checking file: " + files.get(i));
+            for (String error : errors.get(i)) {
+                log.error(error);
+                result++;
+            }
         }
 
-        if (!file.getName().endsWith(".html"))
-            return;
+        return result;
+    }
 
-        log.info("Checking file: " + file);
+    /**
+     * Loads anchor IDs and links of an HTML file.
+     * @param file the file.
+     * @return links of the file.
+     */
+    private List<String> load(Path file) {
+        try {
+            Document doc = Jsoup.parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            ids.put(file, getIds(doc));
+            if (external != null)
+                external.add(file, getUrls(doc));
+            return hrefs(doc);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-        org.jsoup.nodes.Document doc = Jsoup.parse(file, StandardCharsets.UTF_8.name());
-        for (Link link : getLinks(doc)) {
-            String href = link.get();
+    /**
+     * Checks links of a file.
+     * @param file the file.
+     * @param links the links.
+     * @return error messages.
+     */
+    private List<String> checkFile(Path file, List<String> links) {
+        List<String> result = new ArrayList<>();
 
+        for (String href : links) {
             log.debug("Checking: {}", href);
 
             String fragment = null;
@@ -66,40 +180,78 @@ class Links {
                 href = href.substring(0, pos);
             }
 
-            File refFile = file;
+            Path refFile = file;
             if (!StringUtils.isBlank(href)) {
-                refFile = file.toPath().getParent().resolve(href).toFile();
-                if (!refFile.exists()) {
-                    log.error("Not found referenced file: " + href);
-                    errors++;
+                refFile = file.getParent().resolve(href).normalize();
+                if (!Files.exists(refFile)) {
+                    result.add("Not found referenced file: " + href);
                     continue;
                 }
             }
 
-            if (!StringUtils.isBlank(fragment) &&
-                !IOUtils.toString(new FileInputStream(refFile), StandardCharsets.UTF_8.name()).contains("id=\"" + fragment + "\"")) {
-                log.error("Not found referenced fragment: " + fragment);
-                errors++;
-            }
+            if (!StringUtils.isBlank(fragment) && !ids.computeIfAbsent(refFile, this::ids).contains(fragment))
+                result.add("Not found referenced fragment: " + fragment);
+        }
+
+        return result;
+    }
+
+    /**
+     * Reads anchor IDs of a not HTML or out of the checked directory file.
+     * @param file the file.
+     * @return the IDs.
+     */
+    private Set<String> ids(Path file) {
+        try {
+            return Files.isRegularFile(file) ? getIds(Jsoup.parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8))) : Set.of();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
+    private List<String> hrefs(Element doc) {
+        List<String> result = new ArrayList<>();
+        for (Link link : getCheckedLinks(doc))
+            result.add(link.get());
+        return result;
+    }
+
     /**
-     * Extracts 'href' attributes from 'a' tags and 'src' from 'img'.
-     * @param doc HTML document.
+     * Extracts anchor IDs, the same way for generated and read from the disk pages.
+     * @param doc HTML document or element.
+     * @return found IDs.
+     */
+    public static Set<String> getIds(Element doc) {
+        Set<String> result = new HashSet<>();
+        for (Element el : doc.select("[id]"))
+            result.add(el.id());
+        return result;
+    }
+
+    /**
+     * Extracts 'href' attributes from 'a' tags and 'src' from 'img', referencing files to be copied.
+     * @param doc HTML document or element.
      * @return found links.
      */
-    public static Iterable<Link> getLinks(Document doc) {
-        List<Link> result = new ArrayList<>();
+    public static Iterable<Link> getLinks(Element doc) {
+        return links(doc, SELECTOR_RESOURCES);
+    }
 
-        for (Element ref : doc.select("a")) {
-            Link link = new Link(ref);
-            if (!link.isExternalReference())
-                result.add(link);
-        }
+    /**
+     * Extracts checked links: 'href' attributes from 'a' and 'link' tags and 'src' from 'img', 'script', 'source' and 'video'.
+     * @param doc HTML document or element.
+     * @return found links.
+     */
+    public static Iterable<Link> getCheckedLinks(Element doc) {
+        return links(doc, SELECTOR_CHECKED);
+    }
+
+    private static List<Link> links(Element doc, String selector) {
+        List<Link> result = new ArrayList<>();
 
-        for (Element img : doc.select("img")) {
-            Link link = new Link(img);
+        // the single traversal over the document
+        for (Element el : doc.select(selector)) {
+            Link link = new Link(el);
             if (!link.isExternalReference())
                 result.add(link);
         }
@@ -107,4 +259,18 @@ class Links {
         return result;
     }
 
+    /**
+     * Extracts HTTP URLs out of the same attributes as {@link #getCheckedLinks(Element)}.
+     * @param doc HTML document or element.
+     * @return found URLs.
+     */
+    public static List<String> getUrls(Element doc) {
+        List<String> result = new ArrayList<>();
+        for (Element el : doc.select(SELECTOR_CHECKED)) {
+            String href = new Link(el).get();
+            if (Link.isUrl(href))
+                result.add(href);
+        }
+        return result;
+    }
 }
@@ -0,0 +1,302 @@
+package org.pzdcdoc;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Build manifest, stored in the target directory.
+ * Contains hashes of all the inputs for each of generated pages,
+ * pages with not changed inputs are not converted again.
+ * The manifest of another generator version is ignored, so all the pages are converted after an upgrade.
+ *
+ * @author Shamil Vakhitov
+ */
+class Manifest {
+    private static final Logger log = LogManager.getLogger();
+
+    static final String FILE = ".pzdcdoc-manifest.json";
+
+    /** Format version, manifests with another versions are ignored. */
+    private static final int VERSION = 2;
+
+    /** Version of the generator, taken from the JAR manifest. */
+    static final String GENERATOR = Objects.requireNonNullElse(Manifest.class.getPackage().getImplementationVersion(), "dev");
+
+    /** Input key for effective attributes. */
+    private static final String INPUT_ATTRIBUTES = "#attributes";
+    /** Input key for the root ToC. */
+    private static final String INPUT_TOC = "#toc";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Path sourceDir;
+    private final Path targetDir;
+    /** Pages of the previous build. */
+    private final Map<String, Page> previous;
+    /** Pages of the current build, sorted for stable output. */
+    private final Map<String, Page> pages = new ConcurrentSkipListMap<>();
+    /** Pages of the previous build are not up to date. */
+    private boolean convertAll;
+
+    private Manifest(Path sourceDir, Path targetDir, Map<String, Page> previous) {
+        this.sourceDir = sourceDir;
+        this.targetDir = targetDir;
+        this.previous = previous;
+    }
+
+    /**
+     * Loads manifest of the previous build.
+     * @param sourceDir the source directory.
+     * @param targetDir the target directory.
+     * @return the manifest, with empty previous state if no valid file found.
+     */
+    static Manifest load(File sourceDir, File targetDir) {
+        Path sourcePath = sourceDir.toPath().toAbsolutePath().normalize();
+        Path targetPath = targetDir.toPath().toAbsolutePath().normalize();
+
+        Map<String, Page> previous = Map.of();
+
+        File file = new File(targetDir, FILE);
+        if (file.exists()) {
+            try {
+                JsonNode root = MAPPER.readTree(file);
+                if (root.path("version").asInt() != VERSION)
+                    log.info("Ignoring manifest of another version: {}", file);
+                else if (!GENERATOR.equals(root.path("generator").asText()))
+                    log.info("Ignoring manifest of another generator version: {}", file);
+                else
+                    previous = MAPPER.convertValue(root.get("pages"), new TypeReference<Map<String, Page>>() {});
+            } catch (Exception e) {
+                log.error("Ignoring incorrect manifest: " + file, e);
+            }
+        }
+
+        log.info("Loaded manifest with {} pages", previous.size());
+
+        return new Manifest(sourcePath, targetPath, previous);
+    }
+
+    /**
+     * Makes all the pages of the previous build be converted again, e.g. when their search terms are lost.
+     * @return the previous build had pages.
+     */
+    boolean convertAll() {
+        convertAll = true;
+        return !previous.isEmpty();
+    }
+
+    /**
+     * Checks if a page from the previous build has no changes and keeps it in the manifest.
+     * @param ref the page's path, relative to the target directory.
+     * @param attributes effective attributes.
+     * @param tocHash hash of the root ToC.
+     * @return the previous build page, or {@code null} if the page has to be converted.
+     */
+    Page upToDate(String ref, Map<String, Object> attributes, String tocHash) {
+        Page page = previous.get(ref);
+        if (convertAll || page == null || page.errors > 0)
+            return null;
+
+        for (String output : page.outputs) {
+            if (!Files.exists(targetDir.resolve(output))) {
+                log.debug("Missing output: {}", output);
+                return null;
+            }
+        }
+
+        for (var input : page.inputs.entrySet()) {
+            if (!input.getValue().equals(hash(input.getKey(), attributes, tocHash))) {
+                log.debug("Changed input: {}", input.getKey());
+                return null;
+            }
+        }
+
+        pages.put(ref, page);
+
+        return page;
+    }
+
+    /**
+     * Keeps a page from the previous build in the manifest without checking.
+     * @param ref the page's path, relative to the target directory.
+     * @return the page existed in the previous build.
+     */
+    boolean keep(String ref) {
+        Page page = previous.get(ref);
+        if (page == null)
+            return false;
+        pages.put(ref, page);
+        return true;
+    }
+
+    /**
+     * Adds an input file to a page.
+     * @param page the page.
+     * @param path the input file path.
+     * @return {@code true} if the input wasn't added before.
+     */
+    boolean input(Page page, Path path) {
+        return page.inputs.putIfAbsent(key(sourceDir, path), "") == null;
+    }
+
+    /**
+     * Adds an output file to a page.
+     * @param page the page.
+     * @param path the output file path.
+     */
+    void output(Page page, Path path) {
+        page.outputs.add(key(targetDir, path));
+    }
+
+    /**
+     * Hashes inputs of a converted page and adds it to the manifest.
+     * @param ref the page's path, relative to the target directory.
+     * @param page the page.
+     * @param attributes effective attributes.
+     * @param tocHash hash of the root ToC, may be {@code null}.
+     */
+    void put(String ref, Page page, Map<String, Object> attributes, String tocHash) {
+        page.inputs.put(INPUT_ATTRIBUTES, "");
+        if (tocHash != null)
+            page.inputs.put(INPUT_TOC, "");
+
+        page.inputs.replaceAll((input, hash) -> hash(input, attributes, tocHash));
+
+        pages.put(ref, page);
+    }
+
+    /**
+     * @return directories, containing input files of the current build.
+     */
+    Set<Path> inputDirs() {
+        Set<Path> result = new HashSet<>();
+        for (Page page : pages.values())
+            for (String input : page.inputs.keySet())
+                if (!input.startsWith("#"))
+                    result.add(sourceDir.resolve(input).normalize().getParent());
+        return result;
+    }
+
+    /**
+     * @return absolute paths of outputs of all the pages in the current build.
+     */
+    Set<Path> outputs() {
+        Set<Path> result = new HashSet<>();
+        for (Page page : pages.values())
+            for (String output : page.outputs)
+                result.add(targetDir.resolve(output).normalize());
+        return result;
+    }
+
+    /**
+     * Deletes outputs of pages from the previous build, which sources were removed.
+     * Outputs, still produced by the current build, are kept.
+     * @return count of deleted files.
+     */
+    int deleteRemoved() {
+        Set<String> outputs = new HashSet<>();
+        for (Page page : pages.values())
+            outputs.addAll(page.outputs);
+
+        int result = 0;
+        for (var page : previous.entrySet()) {
+            if (pages.containsKey(page.getKey()))
+                continue;
+            for (String output : page.getValue().outputs) {
+                if (outputs.contains(output))
+                    continue;
+                try {
+                    if (Files.deleteIfExists(targetDir.resolve(output))) {
+                        log.info("Deleted output of removed page: {}", output);
+                        result++;
+                    }
+                } catch (Exception e) {
+                    log.error("Can't delete: " + output, e);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes the manifest to the target directory.
+     */
+    void write() {
+        File file = targetDir.resolve(FILE).toFile();
+        log.info("Writing manifest: {}", file);
+        try {
+            MAPPER.writeValue(file, Map.of("version", VERSION, "generator", GENERATOR, "pages", pages));
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    private String hash(String input, Map<String, Object> attributes, String tocHash) {
+        return switch (input) {
+            case INPUT_ATTRIBUTES -> Utils.hash(new TreeMap<>(attributes).toString());
+            case INPUT_TOC -> tocHash;
+            default -> Utils.hash(sourceDir.resolve(input));
+        };
+    }
+
+    private String key(Path dir, Path path) {
+        return Utils.pathToUnix(dir.relativize(path.toAbsolutePath().normalize()).toString());
+    }
+
+    /**
+     * Generated page.
+     */
+    public static class Page {
+        private Map<String, String> inputs = new TreeMap<>();
+        private Set<String> outputs = new TreeSet<>();
+        private int errors;
+
+        /**
+         * @return input file paths, relative to the source directory, with content hashes.
+         */
+        public Map<String, String> getInputs() {
+            return inputs;
+        }
+
+        public void setInputs(Map<String, String> inputs) {
+            this.inputs = new TreeMap<>(inputs);
+        }
+
+        /**
+         * @return output file paths, relative to the target directory.
+         */
+        public Set<String> getOutputs() {
+            return outputs;
+        }
+
+        public void setOutputs(Set<String> outputs) {
+            this.outputs = new TreeSet<>(outputs);
+        }
+
+        /**
+         * @return count of errors, occurred during converting.
+         */
+        public int getErrors() {
+            return errors;
+        }
+
+        public void setErrors(int errors) {
+            this.errors = errors;
+        }
+    }
+}
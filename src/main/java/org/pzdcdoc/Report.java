@@ -0,0 +1,280 @@
+package org.pzdcdoc;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Build instrumentation: per-phase and per-page timers, counters, written bytes and peak heap.
+ * The results are written to a JSON report, the timers are published as JFR events as well.
+ * Phases may overlap, e.g. extensions are called during conversion and diagrams are rendered in parallel.
+ *
+ * @author Shamil Vakhitov
+ */
+public class Report {
+    private static final Logger log = LogManager.getLogger();
+
+    /** Default report file name in the target directory. */
+    static final String FILE = "build-report.json";
+    /** Count of the slowest pages in the report. */
+    private static final int TOP_PAGES = 20;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    /**
+     * Build phases.
+     */
+    public enum Phase {
+        /** AsciiDoctor conversion of a page, including extensions. */
+        CONVERT,
+        /** JavaDoc links processing. */
+        JAVADOC,
+        /** DrawIO macros processing. */
+        DRAWIO,
+        /** DrawIO render, including waiting for a converter. */
+        DRAWIO_RENDER,
+        /** Snippets including. */
+        SNIPPET,
+        /** HTML post-processing. */
+        POST_PROCESS,
+        /** Writing of a page. */
+        WRITE,
+        /** Copying of a resource. */
+        RESOURCE,
+        /** Optimization of an image. */
+        IMAGE,
+        /** Search index writing. */
+        SEARCH,
+        /** Writing of pre-compressed files. */
+        GZIP,
+        /** Links checking. */
+        CHECK
+    }
+
+    private final Instant started = Instant.now();
+    private final long startedNanos = System.nanoTime();
+    private final AtomicLongArray nanos = new AtomicLongArray(Phase.values().length);
+    private final AtomicLongArray counts = new AtomicLongArray(Phase.values().length);
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong notChanged = new AtomicLong();
+    private final ConcurrentLinkedQueue<Page> pages = new ConcurrentLinkedQueue<>();
+    /** Page converted by the current thread. */
+    private final ThreadLocal<Page> page = new ThreadLocal<>();
+
+    /** Constructor, resets the peak heap usage. */
+    Report() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            if (pool.getType() == MemoryType.HEAP)
+                pool.resetPeakUsage();
+    }
+
+    /**
+     * Starts a phase timer, related to the page converted by the current thread.
+     * The timer may be closed by another thread.
+     * @param phase the phase.
+     * @return the timer.
+     */
+    public Timer time(Phase phase) {
+        return new Timer(phase, page.get());
+    }
+
+    /**
+     * Starts conversion of a page by the current thread.
+     * @param ref the page's path, relative to the target directory.
+     */
+    void startPage(String ref) {
+        Page page = new Page(ref);
+        page.event.begin();
+        this.page.set(page);
+    }
+
+    /**
+     * Ends conversion of a page by the current thread.
+     * @param bytes size of the written page.
+     */
+    void endPage(long bytes) {
+        Page page = this.page.get();
+        this.page.remove();
+
+        page.nanos = System.nanoTime() - page.started;
+        this.bytes.addAndGet(bytes);
+        page.bytes.addAndGet(bytes);
+        pages.add(page);
+
+        page.event.ref = page.ref;
+        page.event.bytes = page.bytes.get();
+        page.event.commit();
+    }
+
+    /**
+     * Counts a not changed page.
+     */
+    void notChanged() {
+        notChanged.incrementAndGet();
+    }
+
+    /**
+     * Counts written bytes out of pages, e.g. copied resources.
+     * @param bytes the bytes count.
+     */
+    void bytes(long bytes) {
+        this.bytes.addAndGet(bytes);
+    }
+
+    /**
+     * Writes the report.
+     * @param file the report file.
+     * @param errors count of errors.
+     */
+    void write(File file, int errors) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("started", started.toString());
+        result.put("durationMs", ms(System.nanoTime() - startedNanos));
+        result.put("pages", Map.of("converted", pages.size(), "notChanged", notChanged.get()));
+        result.put("errors", errors);
+        result.put("bytesWritten", bytes.get());
+        result.put("peakHeapBytes", peakHeap());
+
+        Map<String, Object> phases = new LinkedHashMap<>();
+        for (Phase phase : Phase.values())
+            if (counts.get(phase.ordinal()) > 0)
+                phases.put(phase.name(), Map.of("count", counts.get(phase.ordinal()), "ms", ms(nanos.get(phase.ordinal()))));
+        result.put("phases", phases);
+
+        List<Map<String, Object>> slowest = new ArrayList<>();
+        pages.stream()
+            .sorted(Comparator.comparingLong((Page page) -> page.nanos).reversed())
+            .limit(TOP_PAGES)
+            .forEach(page -> slowest.add(page.toMap()));
+        result.put("slowestPages", slowest);
+
+        log.info("Writing build report: {}", file);
+        try {
+            MAPPER.writeValue(file, result);
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    private static long peakHeap() {
+        long result = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null)
+                result += pool.getPeakUsage().getUsed();
+        return result;
+    }
+
+    private static long ms(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /**
+     * Phase timer.
+     */
+    public class Timer implements AutoCloseable {
+        private final Phase phase;
+        private final Page page;
+        private final long started = System.nanoTime();
+        private final PhaseEvent event = new PhaseEvent();
+
+        private Timer(Phase phase, Page page) {
+            this.phase = phase;
+            this.page = page;
+            event.begin();
+        }
+
+        @Override
+        public void close() {
+            long nanos = System.nanoTime() - started;
+            Report.this.nanos.addAndGet(phase.ordinal(), nanos);
+            counts.incrementAndGet(phase.ordinal());
+            if (page != null)
+                page.phases.addAndGet(phase.ordinal(), nanos);
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.phase = phase.name();
+                event.page = page == null ? null : page.ref;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Statistics of a converted page.
+     */
+    private static class Page {
+        private final String ref;
+        private final long started = System.nanoTime();
+        private final AtomicLongArray phases = new AtomicLongArray(Phase.values().length);
+        private final AtomicLong bytes = new AtomicLong();
+        private final PageEvent event = new PageEvent();
+        private volatile long nanos;
+
+        private Page(String ref) {
+            this.ref = ref;
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("ref", ref);
+            result.put("ms", ms(nanos));
+            result.put("bytes", bytes.get());
+
+            Map<String, Object> phases = new LinkedHashMap<>();
+            for (Phase phase : Phase.values())
+                if (this.phases.get(phase.ordinal()) > 0)
+                    phases.put(phase.name(), ms(this.phases.get(phase.ordinal())));
+            result.put("phases", phases);
+
+            return result;
+        }
+    }
+
+    @Name("org.pzdcdoc.Phase")
+    @Label("PzdcDoc Phase")
+    @Category("PzdcDoc")
+    @Description("Build phase of a page or the whole generation")
+    static class PhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
+        @Label("Page")
+        String page;
+    }
+
+    @Name("org.pzdcdoc.Page")
+    @Label("PzdcDoc Page")
+    @Category("PzdcDoc")
+    @Description("Conversion of a page")
+    static class PageEvent extends Event {
+        @Label("Page")
+        String ref;
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+    }
+}
@@ -0,0 +1,163 @@
+package org.pzdcdoc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Content addressed storage of resources, referenced from pages.
+ * Each unique file content is placed once in the target resources directory under the name, built from its hash.
+ *
+ * @author Shamil Vakhitov
+ */
+class Resources {
+    private static final Logger log = LogManager.getLogger();
+
+    /** Length of the hash prefix, used in names. */
+    private static final int HASH_LENGTH = 20;
+    /** Name in the storage, image variants have width suffixes. */
+    private static final Pattern NAME = Pattern.compile("[0-9a-f]{" + HASH_LENGTH + "}(-\\d+w)?(\\.[^.]+)?");
+    /** Daemon threads, copying resources and optimizing images by {@link Images} in parallel with converting of pages. */
+    static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+        Thread thread = new Thread(runnable, "resources");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Path dir;
+    private final Report report;
+    /** Images optimization, null if it is disabled. */
+    private final Images images;
+    /** Names of source files, each file is hashed once during the generation. */
+    private final Map<Path, String> names = new ConcurrentHashMap<>();
+    /** Copying of blobs by their names. */
+    private final Map<String, CompletableFuture<Void>> copies = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     * @param dir the target resources directory.
+     * @param report the build report.
+     * @param images images optimization or {@code null}.
+     */
+    Resources(Path dir, Report report, Images images) {
+        this.dir = dir;
+        this.report = report;
+        this.images = images;
+    }
+
+    /**
+     * Places a file to the storage, the copying is done asynchronously.
+     * @param file the source file.
+     * @return the name of the file in the resources directory.
+     */
+    String add(Path file) {
+        String name = names.computeIfAbsent(file.toAbsolutePath().normalize(), Resources::name);
+        copies.computeIfAbsent(name, key -> images != null && images.isOptimized(key) ?
+            images.optimize(file, key) :
+            CompletableFuture.runAsync(() -> copy(file, dir.resolve(key)), EXECUTOR));
+        return name;
+    }
+
+    /**
+     * Waits for finishing of all the copying.
+     * @return count of failed copies.
+     */
+    int await() {
+        List<CompletableFuture<Void>> copies = new ArrayList<>(this.copies.values());
+        int result = 0;
+        for (CompletableFuture<Void> copy : copies) {
+            try {
+                copy.join();
+            } catch (Exception e) {
+                log.error(e.getMessage(), e);
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Deletes files of the storage, not referenced by any page anymore.
+     * Other files in the directory, e.g. scripts and styles, are not touched.
+     * @param used absolute paths of the files, referenced by pages of the current build.
+     * @return count of deleted files.
+     */
+    int deleteUnused(Set<Path> used) {
+        int result = 0;
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (!NAME.matcher(file.getFileName().toString()).matches() || used.contains(file.toAbsolutePath().normalize()))
+                    continue;
+                Files.deleteIfExists(file);
+                log.info("Deleted not used: {}", file);
+                result++;
+            }
+        } catch (NoSuchFileException e) {
+            // no resources
+        } catch (IOException e) {
+            log.error(e.getMessage(), e);
+        }
+        return result;
+    }
+
+    /**
+     * Name of a file in the storage.
+     * @param file the file.
+     * @return the name, consisting of the content hash and the original extension.
+     */
+    static String name(Path file) {
+        String fileName = file.getFileName().toString();
+        String ext = fileName.contains(".") ? "." + StringUtils.substringAfterLast(fileName, ".") : "";
+        return Utils.hash(file).substring(0, HASH_LENGTH) + ext;
+    }
+
+    /**
+     * Copies a blob, an existing one is never rewritten.
+     * Hard links are not used, as a source file changed in place would change the published blob as well.
+     * @param source the source file.
+     * @param target the target file.
+     */
+    private void copy(Path source, Path target) {
+        try (var timer = report.time(Report.Phase.RESOURCE)) {
+            if (Files.exists(target) && Files.size(target) == Files.size(source)) {
+                log.debug("Not changed: {}", target);
+                return;
+            }
+
+            log.info("Copying {} to {}", source, target);
+            Files.createDirectories(target.getParent());
+
+            // a partially written file must not be taken as a blob
+            Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+            try (var in = FileChannel.open(source, StandardOpenOption.READ);
+                    var out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long size = in.size();
+                for (long position = 0; position < size;)
+                    position += in.transferTo(position, size - position, out);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            report.bytes(Files.size(target));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -2,20 +2,41 @@ package org.pzdcdoc;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jsoup.select.Elements;
+import org.tartarus.snowball.SnowballStemmer;
+import org.tartarus.snowball.ext.germanStemmer;
+import org.tartarus.snowball.ext.porterStemmer;
+import org.tartarus.snowball.ext.russianStemmer;
 
 /**
  * Embedded JS search.
+ * The inverted index is built during generation and split on term range shards, loaded by browser on demand.
  *
  * @author Shamil Vakhitov
  */
@@ -23,19 +44,126 @@ class Search {
     private static final Logger log = LogManager.getLogger();
 
     static final String SCRIPT = "pzsearch.js";
+    /** Articles with terms, stored in the target directory and used for not changed pages in the next build. */
+    static final String FILE = ".pzdcdoc-search.json";
+    /** Prefix of shard script names. */
+    private static final String SHARD_PREFIX = "pzsearch-";
+    /** Approximate size of a shard in chars. */
+    private static final int SHARD_SIZE = 64 * 1024;
 
-    private List<Article> articles = new ArrayList<>();
+    /** Token separator, the same is used in pzdcdoc.js */
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}_]+");
 
-    /** Constructor */
-    Search() {
+    /** Stemmers chain, the same is used in the search pipeline of 'lunr.multiLanguage('en', 'ru', 'de')'. */
+    private static final ThreadLocal<SnowballStemmer[]> STEMMERS = ThreadLocal.withInitial(() -> new SnowballStemmer[] {
+        new porterStemmer(), new russianStemmer(), new germanStemmer()
+    });
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** Articles of the previous build. */
+    private final File file;
+    /** Articles of the current build, appended in order of conversion. */
+    private final File spill;
+    /** Writer to the spill file, created on the first article. */
+    private JsonGenerator spillWriter;
+    /** Refs of added articles. */
+    private final Set<String> added = ConcurrentHashMap.newKeySet();
+    /** Refs of articles to be taken from the previous build. */
+    private final Set<String> kept = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructor
+     * @param targetDir the target directory.
+     */
+    Search(File targetDir) {
+        this.file = new File(targetDir, FILE);
+        this.spill = new File(targetDir, FILE + ".tmp");
+    }
+
+    /**
+     * @return the articles file of the previous build exists.
+     */
+    boolean hasPrevious() {
+        return file.exists();
     }
 
     /**
-     * Adds an article to search index.
+     * Adds an article to search index, thread safe.
+     * The article's terms are appended to the spill file, the content isn't kept in memory.
      * @param article article instance.
      */
     public void addArticle(Article article) {
-        articles.add(article);
+        Set<String> terms = terms(article);
+
+        synchronized (this) {
+            try {
+                write(spillWriter(), article.getRef(), article.getTitle(), terms);
+                added.add(article.getRef());
+            } catch (IOException e) {
+                log.error(e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Takes an article of a not changed page from the previous build, thread safe.
+     * @param ref the article's ref.
+     */
+    public void keepArticle(String ref) {
+        kept.add(Utils.pathToUnix(ref));
+    }
+
+    private JsonGenerator spillWriter() throws IOException {
+        if (spillWriter == null) {
+            spill.getParentFile().mkdirs();
+            spillWriter = MAPPER.getFactory().createGenerator(new FileOutputStream(spill));
+            spillWriter.setRootValueSeparator(new SerializedString("\n"));
+        }
+        return spillWriter;
+    }
+
+    private void write(JsonGenerator out, String ref, String title, Iterable<String> terms) throws IOException {
+        out.writeStartObject();
+        out.writeStringField("ref", ref);
+        out.writeStringField("title", title);
+        out.writeArrayFieldStart("terms");
+        for (String term : terms)
+            out.writeString(term);
+        out.writeEndArray();
+        out.writeEndObject();
+    }
+
+    /**
+     * Completes the spill file with kept articles from the previous build and replaces the previous file by it.
+     * @throws IOException
+     */
+    private synchronized void completeSpill() throws IOException {
+        JsonGenerator out = spillWriter();
+
+        Set<String> missing = new TreeSet<>(kept);
+        missing.removeAll(added);
+        if (!missing.isEmpty() && file.exists()) {
+            try (MappingIterator<JsonNode> it = MAPPER.readerFor(JsonNode.class).readValues(file)) {
+                while (it.hasNext()) {
+                    JsonNode article = it.next();
+                    String ref = article.get("ref").asText();
+                    if (missing.remove(ref)) {
+                        List<String> terms = new ArrayList<>();
+                        article.get("terms").forEach(term -> terms.add(term.asText()));
+                        write(out, ref, article.get("title").asText(), terms);
+                    }
+                }
+            }
+        }
+
+        if (!missing.isEmpty())
+            log.warn("Not found in the previous search index {} not changed pages, run the full build for adding them: {}", missing.size(), missing);
+
+        out.close();
+        spillWriter = null;
+
+        Files.move(spill.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
     }
 
     /**
@@ -47,21 +175,145 @@ class Search {
     }
 
     /**
-     * Generates search JS file.
+     * Generates search JS files: the main one with documents and shards list, and the shards.
+     * Articles are read from the spill file, documents are sorted by refs independently on the conversion order.
      * @param rootRes root directory with resources.
      */
     public void writeScript(File rootRes) {
         log.info("Write search script.");
-        try (Writer out = new OutputStreamWriter(new FileOutputStream(rootRes.getAbsolutePath() + "/" + SCRIPT), StandardCharsets.UTF_8)) {
-            out.write("$(function () {");
-            out.write("$$.documents = ");
-            out.write(new ObjectMapper().writeValueAsString(articles));
-            out.write(";$$.initSearch();});");
+        try {
+            completeSpill();
+
+            // the first pass: refs and titles, sorted by refs
+            Map<String, String> titles = new TreeMap<>();
+            try (MappingIterator<JsonNode> it = MAPPER.readerFor(JsonNode.class).readValues(file)) {
+                while (it.hasNext()) {
+                    JsonNode article = it.next();
+                    titles.put(article.get("ref").asText(), article.get("title").asText());
+                }
+            }
+
+            List<Map<String, String>> docs = new ArrayList<>(titles.size());
+            Map<String, Integer> docNums = new HashMap<>(titles.size());
+            for (var entry : titles.entrySet()) {
+                docNums.put(entry.getKey(), docs.size());
+                // the stable keys order
+                Map<String, String> doc = new LinkedHashMap<>();
+                doc.put("ref", entry.getKey());
+                doc.put("title", entry.getValue());
+                docs.add(doc);
+            }
+
+            // the second pass: term to numbers of documents
+            Map<String, BitSet> index = new TreeMap<>();
+            try (MappingIterator<JsonNode> it = MAPPER.readerFor(JsonNode.class).readValues(file)) {
+                while (it.hasNext()) {
+                    JsonNode article = it.next();
+                    int doc = docNums.get(article.get("ref").asText());
+                    for (JsonNode term : article.get("terms"))
+                        index.computeIfAbsent(term.asText(), t -> new BitSet()).set(doc);
+                }
+            }
+
+            List<String> shards = writeShards(rootRes, index);
+
+            try (Writer out = writer(rootRes, SCRIPT)) {
+                out.write("$(function () {");
+                out.write("$$.initSearch(");
+                Map<String, Object> init = new LinkedHashMap<>();
+                init.put("docs", docs);
+                init.put("shards", shards);
+                out.write(MAPPER.writeValueAsString(init));
+                out.write(");});");
+            }
+
+            log.info("Documents: {}, terms: {}, shards: {}", docs.size(), index.size(), shards.size());
         } catch (Exception e) {
             log.error(e.getMessage(), e);
         }
     }
 
+    /**
+     * Writes the index split on shards with sorted term ranges.
+     * @param rootRes root directory with resources.
+     * @param index the index.
+     * @return the first terms of the shards.
+     * @throws IOException
+     */
+    private List<String> writeShards(File rootRes, Map<String, BitSet> index) throws IOException {
+        File[] previous = rootRes.listFiles((dir, name) -> name.startsWith(SHARD_PREFIX));
+        if (previous != null)
+            for (File file : previous)
+                file.delete();
+
+        List<String> result = new ArrayList<>();
+
+        Map<String, int[]> shard = new TreeMap<>();
+        int size = 0;
+        for (var entry : index.entrySet()) {
+            if (shard.isEmpty())
+                result.add(entry.getKey());
+
+            int[] docs = entry.getValue().stream().toArray();
+            shard.put(entry.getKey(), docs);
+            size += entry.getKey().length() + 4 * docs.length;
+
+            if (size >= SHARD_SIZE) {
+                writeShard(rootRes, result.size() - 1, shard);
+                shard.clear();
+                size = 0;
+            }
+        }
+
+        if (!shard.isEmpty())
+            writeShard(rootRes, result.size() - 1, shard);
+
+        return result;
+    }
+
+    private void writeShard(File rootRes, int num, Map<String, int[]> shard) throws IOException {
+        try (Writer out = writer(rootRes, SHARD_PREFIX + num + ".js")) {
+            out.write("$$.addSearchShard(" + num + ", ");
+            out.write(MAPPER.writeValueAsString(shard));
+            out.write(");");
+        }
+    }
+
+    private Writer writer(File rootRes, String name) throws IOException {
+        return new OutputStreamWriter(new FileOutputStream(new File(rootRes, name)), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Splits article's title and content to stemmed terms.
+     * @param article the article.
+     * @return the terms.
+     */
+    private Set<String> terms(Article article) {
+        Set<String> result = new TreeSet<>();
+        for (String text : new String[] { article.getTitle().toLowerCase(), article.getContent() })
+            for (String token : SEPARATOR.split(text))
+                if (!token.isEmpty())
+                    result.add(stem(token));
+        return result;
+    }
+
+    /**
+     * Stems a token using the chain of stemmers.
+     * @param token lower cased token.
+     * @return the stem.
+     */
+    static String stem(String token) {
+        for (SnowballStemmer stemmer : STEMMERS.get()) {
+            // lunr.stemmer doesn't stem short words
+            if (stemmer instanceof porterStemmer && token.length() < 3)
+                continue;
+            stemmer.setCurrent(token);
+            stemmer.stem();
+            token = stemmer.getCurrent();
+        }
+        return token;
+    }
+
     /**
      * Article - search item.
      */
@@ -3,7 +3,7 @@ package org.pzdcdoc;
 import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
-import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
 
 /**
  * Link to source injector.
@@ -20,10 +20,10 @@ public class SourceLink {
 
     /**
      * Inserts HTTP link to a source file.
-     * @param jsoup document.
+     * @param jsoup document or its part.
      * @param sourceRelativePath path string, relative to a source dir.
      */
-    public void inject(Document jsoup, String sourceRelativePath) {
+    public void inject(Element jsoup, String sourceRelativePath) {
         if (StringUtils.isBlank(linkRootUrl))
             return;
         var el = jsoup.selectFirst("#header > h1");
@@ -0,0 +1,186 @@
+package org.pzdcdoc;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Entities;
+
+/**
+ * Global ToC, extracted from the root index file and injected to each of pages.
+ * The HTML is serialized once and pre-rendered for each depth of pages,
+ * for a page are only spliced the current link marks and the page's own ToC.
+ *
+ * @author Shamil Vakhitov
+ */
+class ToC {
+    /** Placeholder of the relative path to the root directory. */
+    private static final String ROOT = "pzdc-root:";
+    /** Marker attribute of a link, may be current. */
+    private static final String MARKER = "data-pzdc-toc";
+    private static final String MARKER_START = " " + MARKER + "=\"";
+    private static final String LINK_END = "</a>";
+    private static final String CURRENT = " class=\"current\"";
+    /** Current mark of a link with own classes, added inside of the attribute. */
+    private static final String CURRENT_CLASS = " current";
+
+    private final String template;
+    private final String hash;
+    /** Hrefs of the marked links, relative to the root directory. */
+    private final List<String> hrefs = new ArrayList<>();
+    /** Own classes of the marked links, rendered together with the current mark. */
+    private final List<String> classes = new ArrayList<>();
+    /** All the not external links, starting from the root placeholder. */
+    private final List<String> links = new ArrayList<>();
+    private final Set<String> ids = new HashSet<>();
+    /** Pre-rendered variants by the relative paths to the root directory. */
+    private final Map<String, Variant> variants = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     * @param toc the ToC element, is modified.
+     */
+    ToC(Element toc) {
+        for (Element a : toc.select("a")) {
+            Link link = new Link(a);
+            if (link.isExternalReference())
+                continue;
+
+            hrefs.add(link.get());
+            classes.add(a.hasAttr("class") ? Entities.escape(a.attr("class")) : null);
+            a.removeAttr("class");
+            link.set(ROOT + link.get());
+            a.attr("title", a.text());
+            a.attr(MARKER, String.valueOf(hrefs.size() - 1));
+        }
+
+        // add link to root on title
+        Element title = toc.selectFirst("#header h1");
+        if (title != null)
+            title.html("<a href='" + ROOT + "index.html'>" + title.text() + "</a>");
+
+        for (Link link : Links.getCheckedLinks(toc))
+            links.add(link.get());
+        ids.addAll(Links.getIds(toc));
+
+        template = toc.toString();
+        hash = Utils.hash(template);
+    }
+
+    /**
+     * @return hash of the ToC content.
+     */
+    String getHash() {
+        return hash;
+    }
+
+    /**
+     * @return anchor IDs in the ToC.
+     */
+    Set<String> getIds() {
+        return ids;
+    }
+
+    /**
+     * Not external links of the ToC, injected to a page.
+     * @param pathToRoot relative path from the page to the root directory.
+     * @return the links.
+     */
+    List<String> getLinks(String pathToRoot) {
+        return variants.computeIfAbsent(pathToRoot, this::variant).links;
+    }
+
+    /**
+     * Renders the ToC for a page.
+     * Links to the page are marked as current, the class is merged with their own ones.
+     * The page's own ToC is injected after the last of the links.
+     * @param target the page file.
+     * @param pathToRoot relative path from the page to the root directory.
+     * @param pageToC the page's own ToC HTML, may be {@code null}.
+     * @return the HTML.
+     */
+    String render(Path target, String pathToRoot, String pageToC) {
+        Variant variant = variants.computeIfAbsent(pathToRoot, this::variant);
+
+        List<Integer> current = new ArrayList<>();
+        for (int i = 0; i < hrefs.size(); i++)
+            if (target.endsWith(hrefs.get(i)))
+                current.add(i);
+
+        String html = variant.html;
+        StringBuilder result = new StringBuilder(html.length() + (pageToC == null ? 0 : pageToC.length()) + CURRENT.length() * current.size());
+
+        int pos = 0;
+        for (int i : current) {
+            result.append(html, pos, variant.marks[i]).append(classes.get(i) == null ? CURRENT : CURRENT_CLASS);
+            pos = variant.marks[i];
+            if (pageToC != null && i == current.get(current.size() - 1)) {
+                result.append(html, pos, variant.ends[i]).append(pageToC);
+                pos = variant.ends[i];
+            }
+        }
+        result.append(html, pos, html.length());
+
+        return result.toString();
+    }
+
+    /**
+     * Pre-renders the ToC for pages of a depth.
+     * @param pathToRoot relative path from the pages to the root directory.
+     * @return the variant.
+     */
+    private Variant variant(String pathToRoot) {
+        String html = template.replace(ROOT, pathToRoot);
+
+        var result = new Variant(hrefs.size());
+        var withoutMarkers = new StringBuilder(html.length());
+
+        int pos = 0;
+        for (int i = 0; i < hrefs.size(); i++) {
+            int mark = html.indexOf(MARKER_START, pos);
+            withoutMarkers.append(html, pos, mark);
+            // own classes of the link are placed instead of the marker, the current mark is merged in them
+            String cls = classes.get(i);
+            if (cls != null)
+                withoutMarkers.append(" class=\"").append(cls);
+            result.marks[i] = withoutMarkers.length();
+            if (cls != null)
+                withoutMarkers.append('"');
+
+            pos = html.indexOf('"', mark + MARKER_START.length()) + 1;
+            int end = html.indexOf(LINK_END, pos) + LINK_END.length();
+            withoutMarkers.append(html, pos, end);
+            result.ends[i] = withoutMarkers.length();
+            pos = end;
+        }
+        withoutMarkers.append(html, pos, html.length());
+
+        result.html = withoutMarkers.toString();
+        for (String link : links)
+            result.links.add(link.replace(ROOT, pathToRoot));
+
+        return result;
+    }
+
+    /**
+     * ToC pre-rendered for pages of a depth.
+     */
+    private static class Variant {
+        private String html;
+        /** Positions of the links' current marks. */
+        private final int[] marks;
+        /** Positions after the links. */
+        private final int[] ends;
+        private final List<String> links = new ArrayList<>();
+
+        private Variant(int size) {
+            marks = new int[size];
+            ends = new int[size];
+        }
+    }
+}
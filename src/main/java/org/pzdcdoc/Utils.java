@@ -1,5 +1,16 @@
 package org.pzdcdoc;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
 /**
  * Utilities.
  *
@@ -18,4 +29,48 @@ public class Utils {
     public static final String pathToUnix(String path) {
         return path.replace('\\', '/');
     }
+
+    /**
+     * SHA-256 hash of a string.
+     * @param value the string.
+     * @return hex hash value.
+     */
+    public static final String hash(String value) {
+        return hash(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * SHA-256 hash of a file content.
+     * @param path the file path.
+     * @return hex hash value, empty string for a not existing file.
+     */
+    public static final String hash(Path path) {
+        if (!Files.isRegularFile(path))
+            return "";
+        MessageDigest digest = digest();
+        // streaming, large resource files are not loaded in memory
+        try (var in = new DigestInputStream(Files.newInputStream(path), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * SHA-256 hash of bytes.
+     * @param data the bytes.
+     * @return hex hash value.
+     */
+    public static final String hash(byte[] data) {
+        return HexFormat.of().formatHex(digest().digest(data));
+    }
+
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
@@ -0,0 +1,120 @@
+package org.pzdcdoc;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Watcher of changes in source files.
+ *
+ * @author Shamil Vakhitov
+ */
+class Watcher implements AutoCloseable {
+    private static final Logger log = LogManager.getLogger();
+
+    /** Quiet period after the last change, allowing to handle a burst of changes at once. */
+    private static final long DEBOUNCE_MS = 300;
+
+    private final Path sourceDir;
+    private final Path targetDir;
+    private final WatchService service;
+
+    /**
+     * Constructor.
+     * @param sourceDir the source directory.
+     * @param targetDir the target directory, changes there are ignored, as it may be placed inside of the source one.
+     * @throws IOException
+     */
+    Watcher(Path sourceDir, Path targetDir) throws IOException {
+        this.sourceDir = sourceDir.toAbsolutePath().normalize();
+        this.targetDir = targetDir.toAbsolutePath().normalize();
+        this.service = FileSystems.getDefault().newWatchService();
+    }
+
+    /**
+     * Registers the source directory tree and additional directories for watching.
+     * Already registered directories are skipped by the watch service.
+     * @param dirs additional directories, e.g. with snippets outside of the source tree.
+     * @throws IOException
+     */
+    void register(Collection<Path> dirs) throws IOException {
+        try (Stream<Path> tree = Files.walk(sourceDir)) {
+            for (Path dir : (Iterable<Path>) tree.filter(Files::isDirectory)::iterator)
+                if (!ignored(dir))
+                    register(dir);
+        }
+
+        for (Path dir : dirs)
+            if (Files.isDirectory(dir) && !ignored(dir.toAbsolutePath().normalize()))
+                register(dir);
+    }
+
+    private void register(Path dir) throws IOException {
+        dir.register(service, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+    }
+
+    /**
+     * Waits for changes.
+     * @return changed paths.
+     * @throws InterruptedException
+     */
+    Set<Path> await() throws InterruptedException {
+        Set<Path> result = new TreeSet<>();
+
+        while (result.isEmpty()) {
+            WatchKey key = service.take();
+            // collecting events until the quiet period
+            for (; key != null; key = service.poll(DEBOUNCE_MS, TimeUnit.MILLISECONDS)) {
+                Path dir = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    Path path = event.kind() == OVERFLOW ? dir : dir.resolve((Path) event.context());
+                    if (!ignored(path))
+                        result.add(path);
+                }
+                key.reset();
+            }
+        }
+
+        log.debug("Changed: {}", result);
+
+        return result;
+    }
+
+    /**
+     * Paths in the target directory and hidden in the source directory paths, e.g. '.asciidoctor' temporary directories, are not processed.
+     * @param path the path.
+     * @return the path is in the target directory or it or one of its parents is hidden.
+     */
+    boolean ignored(Path path) {
+        if (path.startsWith(targetDir))
+            return true;
+        if (!path.startsWith(sourceDir))
+            return false;
+        for (Path name : sourceDir.relativize(path))
+            if (name.toString().startsWith("."))
+                return true;
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        service.close();
+    }
+}
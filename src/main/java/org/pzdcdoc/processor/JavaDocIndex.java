@@ -0,0 +1,327 @@
+package org.pzdcdoc.processor;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.pzdcdoc.Utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Index of JavaDoc elements: packages, types and members, loaded out of 'element-list', 'type-search-index.js' and 'member-search-index.js' files.
+ * Keys are kept in a trie, so an element is found in time, linear to the key length.
+ *
+ * @author Shamil Vakhitov
+ */
+class JavaDocIndex {
+    private static final Logger log = LogManager.getLogger();
+
+    static final String ELEMENT_LIST = "element-list";
+    /** Packages list of JavaDoc before Java 10. */
+    static final String PACKAGE_LIST = "package-list";
+    static final String TYPE_INDEX = "type-search-index.js";
+    static final String MEMBER_INDEX = "member-search-index.js";
+
+    /** Period of re-using of downloaded files. */
+    private static final Duration DOWNLOAD_TTL = Duration.ofDays(1);
+    /** Period of remembering of a failed download, so pages of a build do not retry it. */
+    private static final Duration FAILURE_TTL = Duration.ofMinutes(10);
+    /** Connect and request timeout. */
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final HttpClient CLIENT = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NORMAL).connectTimeout(TIMEOUT).build();
+
+    /** Loaded indexes by locations. */
+    private static final Map<String, JavaDocIndex> INDEXES = new ConcurrentHashMap<>();
+    /** Downloads by their directories. */
+    private static final Map<Path, Download> DOWNLOADS = new ConcurrentHashMap<>();
+
+    private final Trie trie = new Trie();
+    /** Modification time of the loaded files, the index is loaded again after changing. */
+    private final long modified;
+    private boolean types;
+    private boolean members;
+
+    private JavaDocIndex(long modified) {
+        this.modified = modified;
+    }
+
+    /**
+     * Provides the index of JavaDoc, loaded once and shared between pages.
+     * @param location directory or URL of the JavaDoc.
+     * @param cacheDir directory for downloaded files.
+     * @return the index or {@code null}, if downloading of it has already failed.
+     * @throws IOException
+     */
+    static JavaDocIndex get(String location, Path cacheDir) throws IOException {
+        Path dir = location.contains("://") ? download(location, cacheDir) : Path.of(location);
+        if (dir == null)
+            return null;
+
+        long modified = modified(dir);
+        JavaDocIndex result = INDEXES.get(location);
+        if (result == null || result.modified != modified) {
+            synchronized (INDEXES) {
+                result = INDEXES.get(location);
+                if (result == null || result.modified != modified) {
+                    result = load(dir, modified);
+                    INDEXES.put(location, result);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Loads the index out of a directory.
+     * @param dir the directory.
+     * @return the index.
+     * @throws IOException
+     */
+    static JavaDocIndex load(Path dir) throws IOException {
+        return load(dir, modified(dir));
+    }
+
+    private static JavaDocIndex load(Path dir, long modified) throws IOException {
+        log.info("Loading JavaDoc index: {}", dir);
+
+        JavaDocIndex result = new JavaDocIndex(modified);
+
+        Path elements = dir.resolve(ELEMENT_LIST);
+        if (!Files.exists(elements))
+            elements = dir.resolve(PACKAGE_LIST);
+        if (!Files.exists(elements))
+            throw new IOException("Not found JavaDoc element list in: " + dir);
+
+        int count = 0;
+        for (String line : Files.readAllLines(elements, StandardCharsets.UTF_8)) {
+            // modules are not referenced
+            if (!line.isBlank() && !line.startsWith("module:")) {
+                result.trie.add(line.trim());
+                count++;
+            }
+        }
+
+        Path types = dir.resolve(TYPE_INDEX);
+        if (result.types = Files.exists(types)) {
+            for (JsonNode type : readIndex(types)) {
+                if (type.has("p") && type.has("l")) {
+                    result.trie.add(type.get("p").asText() + "." + type.get("l").asText());
+                    count++;
+                }
+            }
+        }
+
+        Path members = dir.resolve(MEMBER_INDEX);
+        if (result.members = Files.exists(members)) {
+            for (JsonNode member : readIndex(members)) {
+                if (member.has("p") && member.has("c") && member.has("l")) {
+                    // anchor, if differs from the label
+                    String anchor = member.has("u") ? member.get("u").asText() : member.get("l").asText();
+                    result.trie.add(member.get("p").asText() + "." + member.get("c").asText() + "#" + anchor);
+                    count++;
+                }
+            }
+        }
+
+        log.info("Loaded JavaDoc elements: {}", count);
+
+        return result;
+    }
+
+    /**
+     * Reads JSON array out of a search index script, e.g. 'typeSearchIndex = [...];updateSearchResults();'.
+     * @param file the script.
+     * @return the array.
+     * @throws IOException
+     */
+    private static JsonNode readIndex(Path file) throws IOException {
+        String content = Files.readString(file, StandardCharsets.UTF_8);
+        int from = content.indexOf('[');
+        int to = content.lastIndexOf(']');
+        if (from < 0 || to < from)
+            throw new IOException("Incorrect JavaDoc index: " + file);
+        return MAPPER.readTree(content.substring(from, to + 1));
+    }
+
+    private static long modified(Path dir) throws IOException {
+        long result = 0;
+        for (String name : new String[] { ELEMENT_LIST, PACKAGE_LIST, TYPE_INDEX, MEMBER_INDEX }) {
+            Path file = dir.resolve(name);
+            if (Files.exists(file))
+                result = Math.max(result, Files.getLastModifiedTime(file).toMillis());
+        }
+        return result;
+    }
+
+    /**
+     * Downloads index files of a remote JavaDoc, the downloaded files are re-used during the TTL.
+     * The result is checked once per the TTL, failures are remembered and not retried for {@link #FAILURE_TTL}.
+     * @param url the JavaDoc URL.
+     * @param cacheDir the cache directory.
+     * @return directory with the downloaded files or {@code null}, if the download has failed before.
+     * @throws IOException the download has failed.
+     */
+    static Path download(String url, Path cacheDir) throws IOException {
+        if (!url.endsWith("/"))
+            url += "/";
+
+        Path dir = cacheDir.resolve(Utils.hash(url).substring(0, 20)).toAbsolutePath().normalize();
+        Download download = DOWNLOADS.get(dir);
+        if (download == null || download.expired()) {
+            synchronized (DOWNLOADS) {
+                download = DOWNLOADS.get(dir);
+                if (download == null || download.expired()) {
+                    try {
+                        downloadFiles(url, dir);
+                    } catch (IOException | RuntimeException e) {
+                        DOWNLOADS.put(dir, new Download(false));
+                        throw e;
+                    }
+                    download = new Download(true);
+                    DOWNLOADS.put(dir, download);
+                }
+            }
+        }
+        return download.ok ? dir : null;
+    }
+
+    private static void downloadFiles(String url, Path dir) throws IOException {
+        Files.createDirectories(dir);
+
+        for (String name : new String[] { ELEMENT_LIST, PACKAGE_LIST, TYPE_INDEX, MEMBER_INDEX }) {
+            // missing in the remote files are stored as empty markers
+            Path file = dir.resolve(name);
+            Path missing = dir.resolve(name + ".missing");
+            Path existing = Files.exists(file) ? file : missing;
+            if (Files.exists(existing) && System.currentTimeMillis() - Files.getLastModifiedTime(existing).toMillis() < DOWNLOAD_TTL.toMillis())
+                continue;
+
+            log.info("Downloading: {}{}", url, name);
+            try {
+                HttpRequest request = HttpRequest.newBuilder().uri(URI.create(url + name)).timeout(TIMEOUT).GET().build();
+                HttpResponse<byte[]> response = CLIENT.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                if (response.statusCode() == 200) {
+                    Path tmp = dir.resolve(name + ".tmp");
+                    Files.write(tmp, response.body());
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    Files.deleteIfExists(missing);
+                } else {
+                    Files.deleteIfExists(file);
+                    Files.writeString(missing, String.valueOf(response.statusCode()));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+    }
+
+    /**
+     * Result of a download.
+     */
+    private static class Download {
+        private final boolean ok;
+        private final long time = System.currentTimeMillis();
+
+        private Download(boolean ok) {
+            this.ok = ok;
+        }
+
+        private boolean expired() {
+            return System.currentTimeMillis() - time >= (ok ? DOWNLOAD_TTL : FAILURE_TTL).toMillis();
+        }
+    }
+
+    /**
+     * Checks an element.
+     * Without loaded type or member indexes only the known parts of the element are checked.
+     * @param element package, qualified class name or class name with '#' and member anchor.
+     * @return the element exists.
+     */
+    boolean contains(String element) {
+        String type = StringUtils.substringBefore(element, "#");
+        if (!members && !type.equals(element))
+            element = type;
+        if (!types && element.equals(type) && !trie.contains(type))
+            element = StringUtils.substringBeforeLast(type, ".");
+        return trie.contains(element);
+    }
+
+    /**
+     * Prefix tree of strings with sorted children arrays.
+     */
+    static class Trie {
+        private final Node root = new Node();
+
+        /**
+         * Adds a key.
+         * @param key the key.
+         */
+        void add(CharSequence key) {
+            Node node = root;
+            for (int i = 0; i < key.length(); i++)
+                node = node.child(key.charAt(i), true);
+            node.terminal = true;
+        }
+
+        /**
+         * Checks a key.
+         * @param key the key.
+         * @return the key was added.
+         */
+        boolean contains(CharSequence key) {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++)
+                node = node.child(key.charAt(i), false);
+            return node != null && node.terminal;
+        }
+
+        private static class Node {
+            private static final char[] NO_CHARS = new char[0];
+            private static final Node[] NO_NODES = new Node[0];
+
+            private char[] chars = NO_CHARS;
+            private Node[] children = NO_NODES;
+            private boolean terminal;
+
+            private Node child(char c, boolean create) {
+                int pos = Arrays.binarySearch(chars, c);
+                if (pos >= 0)
+                    return children[pos];
+                if (!create)
+                    return null;
+
+                pos = -pos - 1;
+                char[] chars = new char[this.chars.length + 1];
+                Node[] children = new Node[chars.length];
+                System.arraycopy(this.chars, 0, chars, 0, pos);
+                System.arraycopy(this.children, 0, children, 0, pos);
+                System.arraycopy(this.chars, pos, chars, pos + 1, this.chars.length - pos);
+                System.arraycopy(this.children, pos, children, pos + 1, this.children.length - pos);
+                chars[pos] = c;
+                children[pos] = new Node();
+
+                this.chars = chars;
+                this.children = children;
+                return children[pos];
+            }
+        }
+    }
+}
@@ -1,23 +1,35 @@
 package org.pzdcdoc.processor;
 
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.asciidoctor.ast.PhraseNode;
 import org.asciidoctor.ast.StructuralNode;
 import org.asciidoctor.extension.InlineMacroProcessor;
 import org.asciidoctor.extension.Name;
 import org.pzdcdoc.Generator;
+import org.pzdcdoc.Report;
 
 /**
- * AsciiDoctor-J processor converting 'javadoc:package.Class[]' to JavaDoc URLs.
+ * AsciiDoctor-J processor converting 'javadoc:package.Class[]' and 'javadoc:package.Class#member[]' to JavaDoc URLs.
+ * The referenced elements are validated, if attribute 'pzdc-javadoc-index' is defined.
  *
  * @author Shamil Vakhitov
  */
 @Name("javadoc")
 public class JavaDocLink extends InlineMacroProcessor {
+    private static final Logger log = LogManager.getLogger();
+
     /** JavaDoc URL path prefix, can be absolute or related to the target root directory */
     private static final String ATTR_PATH_PREFIX = "pzdc-javadoc";
+    /** Directory or URL of JavaDoc for validation of links, by default links aren't validated */
+    private static final String ATTR_INDEX = "pzdc-javadoc-index";
+    /** Directory in the target root for downloaded JavaDoc index files */
+    private static final String DIR_CACHE = ".pzdcdoc-javadoc";
 
     /** Constructor */
     public JavaDocLink() {
@@ -25,6 +37,42 @@ public class JavaDocLink extends InlineMacroProcessor {
 
     @Override
     public PhraseNode process(StructuralNode parent, String target, Map<String, Object> attributes) {
+        Generator generator = (Generator) parent.getDocument().getAttribute(Generator.ATTR_GENERATOR);
+        try (var timer = generator.time(Report.Phase.JAVADOC)) {
+            check(generator, parent, target);
+            return link(parent, target, attributes);
+        }
+    }
+
+    /**
+     * Checks existence of a referenced element in JavaDoc index, if it is configured.
+     * @param generator the generator.
+     * @param parent the parent node.
+     * @param target the macro target.
+     */
+    private void check(Generator generator, StructuralNode parent, String target) {
+        String location = (String) parent.getDocument().getAttribute(ATTR_INDEX);
+        if (StringUtils.isBlank(location))
+            return;
+
+        try {
+            Path targetPath = (Path) parent.getDocument().getAttribute(Generator.ATTR_TARGET);
+            String pathToRoot = (String) parent.getDocument().getAttribute(Generator.ATTR_PATH_TO_ROOT);
+            Path cacheDir = targetPath.getParent().resolve(pathToRoot).resolve(DIR_CACHE).normalize();
+
+            // the failed download is reported once
+            JavaDocIndex index = JavaDocIndex.get(location.trim(), cacheDir);
+            if (index != null && !index.contains(target)) {
+                log.error("Not found JavaDoc element: {}", target);
+                generator.error();
+            }
+        } catch (Exception e) {
+            log.error("JavaDoc index error: " + location, e);
+            generator.error();
+        }
+    }
+
+    private PhraseNode link(StructuralNode parent, String target, Map<String, Object> attributes) {
         String prefix = (String) parent.getDocument().getAttribute(ATTR_PATH_PREFIX);
         if (prefix == null)
             throw new UnsupportedOperationException("No proper configuration defined for javadoc macros");
@@ -37,7 +85,10 @@ public class JavaDocLink extends InlineMacroProcessor {
         Map<String, Object> options = new HashMap<>();
         options.put("type", ":link");
 
-        String path = target.replace('.', '/') + ".html";
+        // member anchors may contain dots in parameter types
+        String path = StringUtils.substringBefore(target, "#").replace('.', '/') + ".html";
+        if (target.contains("#"))
+            path += "#" + StringUtils.substringAfter(target, "#");
 
         String targetOption = null;
         // absolute path prefix
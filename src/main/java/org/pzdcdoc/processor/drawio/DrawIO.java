@@ -1,7 +1,6 @@
 package org.pzdcdoc.processor.drawio;
 
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
@@ -9,10 +8,19 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandlers;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -25,6 +33,7 @@ import org.asciidoctor.ast.StructuralNode;
 import org.asciidoctor.extension.InlineMacroProcessor;
 import org.asciidoctor.extension.Name;
 import org.pzdcdoc.Generator;
+import org.pzdcdoc.Report;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 /**
@@ -39,9 +48,27 @@ public class DrawIO extends InlineMacroProcessor {
     /** Attribute defining JavaDoc root URL. */
     private static final String ATTR_CONVERTER = "pzdc-drawio-converter";
     private static final String ATTR_TIMEOUT = "pzdc-drawio-request-timeout-sec";
+    /** Attribute defining max count of parallel requests to a converter. */
+    private static final String ATTR_MAX_REQUESTS = "pzdc-drawio-max-requests";
+    /** Attribute defining directory of shared render cache, relative paths are resolved from the target root directory. */
+    private static final String ATTR_CACHE = "pzdc-drawio-cache";
+    /** Attribute defining max size of the render cache in megabytes. */
+    private static final String ATTR_CACHE_SIZE = "pzdc-drawio-cache-size-mb";
+
+    /** Attempts of a request, failed by IO error or server side HTTP status. */
+    private static final int ATTEMPTS = 3;
+    /** The first delay before retrying, doubled after each attempt. */
+    private static final long BACKOFF_MS = 500;
 
     private static final ObjectMapper MAPPER = new ObjectMapper();
 
+    /** Shared client, keeping connections to converters. */
+    private static final HttpClient CLIENT = HttpClient.newBuilder().build();
+    /** Executors per converter URL, count of their threads limits parallel requests, so a slow converter doesn't delay others. */
+    private static final Map<String, ExecutorService> EXECUTORS = new ConcurrentHashMap<>();
+    /** Running renders of target files, the same diagram may be converted from pages in parallel. */
+    private static final Map<Path, CompletableFuture<Void>> RENDERS = new ConcurrentHashMap<>();
+
     /** Constructor */
     public DrawIO() {}
 
@@ -57,12 +84,14 @@ public class DrawIO extends InlineMacroProcessor {
 
     /**
      * Processes Draw.IO diagram.
+     * The image is rendered asynchronously, the generator waits for it before writing the page.
      * @param doc AsciiDoctor document.
      * @param target document replated path to '.drawio' XML source file.
      * @return path to converted image.
      */
     static String convert(Document doc, String target) {
-        try {
+        Generator generator = (Generator) doc.getAttribute(Generator.ATTR_GENERATOR);
+        try (var timer = generator.time(Report.Phase.DRAWIO)) {
             Path srcPath = Path.of((String) doc.getAttribute("docdir"), target);
 
             // TODO: Think about supporting different formats except SVG.
@@ -73,6 +102,10 @@ public class DrawIO extends InlineMacroProcessor {
             Path targetDocPath = (Path) doc.getAttribute(Generator.ATTR_TARGET);
             Path targetPath = targetDocPath.getParent().resolve(target);
 
+            // a missing after failed conversion output causes converting again
+            generator.input(srcPath);
+            generator.output(targetPath);
+
             convert(doc, srcPath, targetPath, format);
 
             return target;
@@ -83,7 +116,7 @@ public class DrawIO extends InlineMacroProcessor {
     }
 
     /**
-     * Sends request to converter container:
+     * Renders diagram with the built-in {@link SvgRenderer}, diagrams not supported by it are submitted to converter container:
      * https://hub.docker.com/r/tomkludy/drawio-renderer
      *
      * @param doc AsciiDoc document
@@ -93,47 +126,193 @@ public class DrawIO extends InlineMacroProcessor {
      * @throws Exception
     */
     private static void convert(Document doc, Path srcPath, Path targetPath, String format) throws Exception {
+        var targetFile = targetPath.toFile();
+        if (targetFile.exists() && srcPath.toFile().lastModified() < targetFile.lastModified()) {
+            log.info("Skipping converting. Target file already exists and newer than source.");
+            return;
+        }
+
+        String source;
+        try (var in = new FileInputStream(srcPath.toString())) {
+            source = IOUtils.toString(in, StandardCharsets.UTF_8);
+        }
+
+        Generator generator = (Generator) doc.getAttribute(Generator.ATTR_GENERATOR);
+        check(generator, source);
+
+        RenderCache cache = cache(doc);
+        String key = RenderCache.key(source, format, SvgRenderer.ID);
+        if (cache != null && cache.get(key, format, targetPath)) {
+            log.info("Taken from cache srcPath: {}, targetPath: {}", srcPath, targetPath);
+            return;
+        }
+
+        try (var timer = generator.time(Report.Phase.DRAWIO_RENDER)) {
+            write(SvgRenderer.render(source), targetPath);
+            if (cache != null)
+                cache.put(key, format, targetPath);
+            log.info("Rendered srcPath: {}, targetPath: {}", srcPath, targetPath);
+            return;
+        } catch (SvgRenderer.UnsupportedException e) {
+            log.info("Not supported by the built-in renderer: {}, srcPath: {}", e.getMessage(), srcPath);
+        }
+
         String converterUrl = (String) doc.getAttribute(ATTR_CONVERTER);
         if (StringUtils.isBlank(converterUrl))
-            throw new IllegalArgumentException("Attribute '" + ATTR_CONVERTER + "' is not defined");
+            throw new IllegalArgumentException("Attribute '" + ATTR_CONVERTER + "' is not defined, the diagram can't be rendered: " + srcPath);
         int timeout = NumberUtils.toInt((String) doc.getAttribute(ATTR_TIMEOUT), 60);
+        int maxRequests = NumberUtils.toInt((String) doc.getAttribute(ATTR_MAX_REQUESTS), 4);
 
-        log.info("Converting URL: {}, srcPath: {}, targetPath: {}", converterUrl, srcPath, targetPath);
-
-        var targetFile = targetPath.toFile();
-        if (targetFile.exists() && srcPath.toFile().lastModified() < targetFile.lastModified()) {
-            log.info("Skipping converting. Target file already exists and newer than source.");
+        String converterKey = RenderCache.key(source, format, converterUrl);
+        if (cache != null && cache.get(converterKey, format, targetPath)) {
+            log.info("Taken from cache srcPath: {}, targetPath: {}", srcPath, targetPath);
             return;
         }
 
-        long time = System.currentTimeMillis();
+        log.info("Converting URL: {}, srcPath: {}, targetPath: {}", converterUrl, srcPath, targetPath);
 
-        String source = IOUtils.toString(new FileInputStream(srcPath.toString()), StandardCharsets.UTF_8);
         String json = MAPPER.writeValueAsString(Map.of(
             "source", source,
             "format", format
         ));
 
-        check((Generator) doc.getAttribute(Generator.ATTR_GENERATOR), source);
+        Report.Timer timer = generator.time(Report.Phase.DRAWIO_RENDER);
+        generator.pending(render(converterUrl, timeout, maxRequests, json, targetPath)
+            .thenRun(() -> {
+                if (cache != null)
+                    cache.put(converterKey, format, targetPath);
+            })
+            .whenComplete((v, e) -> timer.close())
+            .exceptionally(e -> {
+                log.error("Export error", e);
+                return null;
+            }));
+    }
+
+    /**
+     * Provides the render cache, if it is configured.
+     * @param doc AsciiDoc document.
+     * @return the cache or {@code null}.
+     */
+    private static RenderCache cache(Document doc) {
+        String dir = (String) doc.getAttribute(ATTR_CACHE);
+        if (StringUtils.isBlank(dir))
+            return null;
+
+        Path targetPath = (Path) doc.getAttribute(Generator.ATTR_TARGET);
+        String pathToRoot = (String) doc.getAttribute(Generator.ATTR_PATH_TO_ROOT);
+        Path path = targetPath.getParent().resolve(pathToRoot).resolve(dir.trim()).normalize();
 
-        HttpRequest request = HttpRequest.newBuilder()
-            .uri(new URI(converterUrl))
-            .timeout(Duration.ofSeconds(timeout))
-            .header("Content-Type", "application/json; charset=utf-8")
-            .POST(HttpRequest.BodyPublishers.ofString(json))
-            .build();
+        return RenderCache.get(path, NumberUtils.toLong((String) doc.getAttribute(ATTR_CACHE_SIZE), 200) * 1024 * 1024);
+    }
 
-        HttpResponse<String> response = HttpClient.newBuilder()
-            .build()
-            .send(request, BodyHandlers.ofString());
+    /**
+     * Renders a diagram asynchronously, a running render of the same target file is re-used.
+     * @param converterUrl the converter URL.
+     * @param timeout timeout for all the attempts in seconds.
+     * @param maxRequests max count of parallel requests to the converter.
+     * @param json the request body.
+     * @param targetPath path of resulting file.
+     * @return the render future.
+     */
+    static CompletableFuture<Void> render(String converterUrl, int timeout, int maxRequests, String json, Path targetPath) {
+        CompletableFuture<Void> result = RENDERS.computeIfAbsent(targetPath, path -> {
+            ExecutorService executor = EXECUTORS.computeIfAbsent(converterUrl, url -> executor(maxRequests));
+            return CompletableFuture.runAsync(() -> {
+                try {
+                    render(converterUrl, timeout, json, targetPath);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+        });
+        // attached out of the map update, the future may be already completed and the handler is called at once
+        result.whenComplete((v, e) -> RENDERS.remove(targetPath, result));
+        return result;
+    }
 
-        if (response.statusCode() != 200)
-            throw new IOException("HTTP response code: " + response.statusCode() + "; body: " + response.body());
+    /**
+     * Creates an executor of requests to a converter, the idle daemon threads are stopped.
+     * @param maxRequests max count of parallel requests.
+     * @return the executor.
+     */
+    private static ExecutorService executor(int maxRequests) {
+        var result = new ThreadPoolExecutor(maxRequests, maxRequests, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "drawio");
+            thread.setDaemon(true);
+            return thread;
+        });
+        result.allowCoreThreadTimeOut(true);
+        return result;
+    }
 
-        targetPath.getParent().toFile().mkdirs();
-        IOUtils.write(response.body(), new FileOutputStream(targetPath.toString()), StandardCharsets.UTF_8);
+    /**
+     * Sends request to converter with retries, all the attempts are limited by the timeout.
+     * @param converterUrl the converter URL.
+     * @param timeout timeout in seconds.
+     * @param json the request body.
+     * @param targetPath path of resulting file.
+     * @throws Exception
+     */
+    private static void render(String converterUrl, int timeout, String json, Path targetPath) throws Exception {
+        long time = System.currentTimeMillis();
+        long deadline = time + timeout * 1000L;
+        long backoff = BACKOFF_MS;
 
-        log.info("Time => {} ms.", System.currentTimeMillis() - time);
+        for (int attempt = 1;; attempt++) {
+            HttpRequest request = HttpRequest.newBuilder()
+                .uri(new URI(converterUrl))
+                .timeout(Duration.ofMillis(Math.max(deadline - System.currentTimeMillis(), 1)))
+                .header("Content-Type", "application/json; charset=utf-8")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+
+            HttpResponse<String> response = null;
+            IOException error = null;
+            try {
+                response = CLIENT.send(request, BodyHandlers.ofString());
+            } catch (IOException e) {
+                error = e;
+            }
+
+            if (response != null) {
+                if (response.statusCode() == 200) {
+                    write(response.body(), targetPath);
+                    break;
+                }
+
+                error = new IOException("HTTP response code: " + response.statusCode() + "; body: " + response.body());
+                // client side errors are not retried
+                if (response.statusCode() < 500 && response.statusCode() != 429)
+                    throw error;
+            }
+
+            if (attempt >= ATTEMPTS || System.currentTimeMillis() + backoff >= deadline)
+                throw error;
+
+            log.warn("Retrying after {} ms, attempt: {}, error: {}", backoff, attempt, error.getMessage());
+            Thread.sleep(backoff);
+            backoff *= 2;
+        }
+
+        log.info("Time => {} ms, targetPath: {}", System.currentTimeMillis() - time, targetPath);
+    }
+
+    /**
+     * Writes a rendered image over a temporary file, the same diagram may be rendered from pages in parallel.
+     * @param image the image content.
+     * @param targetPath path of resulting file.
+     * @throws IOException
+     */
+    private static void write(String image, Path targetPath) throws IOException {
+        Files.createDirectories(targetPath.getParent());
+        Path tmp = Files.createTempFile(targetPath.getParent(), targetPath.getFileName().toString(), ".tmp");
+        try {
+            Files.writeString(tmp, image, StandardCharsets.UTF_8);
+            Files.move(tmp, targetPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
     }
 
     /**
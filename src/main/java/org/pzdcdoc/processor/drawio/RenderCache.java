@@ -0,0 +1,191 @@
+package org.pzdcdoc.processor.drawio;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.pzdcdoc.Utils;
+
+/**
+ * Content addressed cache of rendered diagrams, the directory may be shared between builds, branches and CI agents.
+ * Entries are keyed by hash of the diagram source, the format and the renderer identity,
+ * on hit they are hard linked to the target or copied, if linking is not possible.
+ * The least recently used entries are removed, when the cache size exceeds the limit.
+ * The size is walked on the first write and then tracked as a running total, so the directory is not walked after each diagram.
+ *
+ * @author Shamil Vakhitov
+ */
+class RenderCache {
+    private static final Logger log = LogManager.getLogger();
+
+    /** Caches by directories. */
+    private static final Map<Path, RenderCache> CACHES = new ConcurrentHashMap<>();
+
+    /** Entries are removed down to the part of the max size, so the next writes do not exceed it at once. */
+    private static final double PRUNE_RATIO = 0.9;
+
+    private final Path dir;
+    private final long maxSize;
+    /** Total size of entries, {@code -1} before the first walk. */
+    private long size = -1;
+
+    private RenderCache(Path dir, long maxSize) {
+        this.dir = dir;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Provides the cache for a directory.
+     * @param dir the cache directory.
+     * @param maxSize max size of the cache in bytes.
+     * @return the cache instance.
+     */
+    static RenderCache get(Path dir, long maxSize) {
+        return CACHES.computeIfAbsent(dir.toAbsolutePath().normalize(), key -> new RenderCache(key, maxSize));
+    }
+
+    /**
+     * Builds key of an entry.
+     * @param source the diagram source.
+     * @param format the resulting format.
+     * @param renderer identity of the renderer, e.g. version of the built-in one or the converter URL.
+     * @return the key.
+     */
+    static String key(String source, String format, String renderer) {
+        return Utils.hash(format + "\n" + renderer + "\n" + source);
+    }
+
+    /**
+     * Path of an entry, sharded to sub-directories by the first key chars.
+     * @param key the key.
+     * @param format the format, used as the file extension.
+     * @return the path.
+     */
+    Path path(String key, String format) {
+        return dir.resolve(key.substring(0, 2)).resolve(key + "." + format);
+    }
+
+    /**
+     * Restores a cached file.
+     * @param key the key.
+     * @param format the format.
+     * @param targetPath path of resulting file.
+     * @return the entry was found.
+     */
+    boolean get(String key, String format, Path targetPath) {
+        Path entry = path(key, format);
+        try {
+            // the file time is used for removing the least recently used entries
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+
+            Files.createDirectories(targetPath.getParent());
+            Files.deleteIfExists(targetPath);
+            try {
+                Files.createLink(targetPath, entry);
+            } catch (IOException | UnsupportedOperationException e) {
+                // links aren't supported or another file system
+                log.debug("Copying cached entry: {}, {}", entry, e.toString());
+                Files.copy(entry, targetPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException | UnsupportedOperationException e) {
+            log.warn("Cache reading error: {}, {}", entry, e.toString());
+            return false;
+        }
+    }
+
+    /**
+     * Stores a rendered file.
+     * @param key the key.
+     * @param format the format.
+     * @param file the file.
+     */
+    void put(String key, String format, Path file) {
+        Path entry = path(key, format);
+        try {
+            Files.createDirectories(entry.getParent());
+            long replaced = Files.exists(entry) ? Files.size(entry) : 0;
+            Path tmp = Files.createTempFile(entry.getParent(), key, ".tmp");
+            try {
+                Files.copy(file, tmp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            added(Files.size(entry) - replaced);
+        } catch (IOException e) {
+            log.warn("Cache writing error: {}, {}", entry, e.toString());
+        }
+    }
+
+    /**
+     * Updates the total size, prunes the cache when it exceeds the max size.
+     * @param bytes size of the written entry.
+     * @throws IOException
+     */
+    private synchronized void added(long bytes) throws IOException {
+        if (size < 0)
+            // the written entry is already counted
+            prune();
+        else {
+            size += bytes;
+            if (size > maxSize)
+                prune();
+        }
+    }
+
+    /**
+     * Walks the cache directory and removes the least recently used entries, exceeding the max size.
+     * Entries, written by other builds, are counted as well.
+     * @throws IOException
+     */
+    private synchronized void prune() throws IOException {
+        List<Path> entries = new ArrayList<>();
+        Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+        long total = 0;
+        try (Stream<Path> files = Files.walk(dir, 2)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (file.getFileName().toString().endsWith(".tmp"))
+                    continue;
+                try {
+                    var attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                    if (!attrs.isRegularFile())
+                        continue;
+                    entries.add(file);
+                    attributes.put(file, attrs);
+                    total += attrs.size();
+                } catch (NoSuchFileException e) {
+                    // removed by another build
+                }
+            }
+        }
+
+        if (total > maxSize) {
+            entries.sort(Comparator.comparing(file -> attributes.get(file).lastModifiedTime()));
+            for (Path file : entries) {
+                if (total <= maxSize * PRUNE_RATIO)
+                    break;
+                Files.deleteIfExists(file);
+                total -= attributes.get(file).size();
+                log.debug("Removed cache entry: {}", file);
+            }
+        }
+
+        size = total;
+    }
+}
@@ -0,0 +1,952 @@
+package org.pzdcdoc.processor.drawio;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+
+/**
+ * Built-in renderer of DrawIO diagrams to SVG, working without a converter.
+ * Supported are plain mxGraph models of the first diagram page with basic shapes, groups, straight and orthogonal edges
+ * with classic, open, block, diamond and oval arrows, text labels and common styles: colors, gradients, stroke width, dashes, opacity, rounding, rotation and fonts.
+ * For other diagrams {@link UnsupportedException} is thrown, they have to be rendered by a converter.
+ *
+ * @author Shamil Vakhitov
+ */
+class SvgRenderer {
+    /** Identity of the renderer for caching of results, to be changed together with the output. */
+    static final String ID = "pzdcdoc-svg-2";
+
+    /** Shapes, drawn by the renderer, "rectangle" is the default one. */
+    private static final Set<String> SHAPES = Set.of("rectangle", "ellipse", "doubleEllipse", "rhombus", "triangle", "hexagon", "cylinder", "cylinder3");
+    /** Named styles, not defining a shape. */
+    private static final Set<String> STYLES = Set.of("text", "edgeLabel", "group");
+    /** Edge styles, routed orthogonally. */
+    private static final Set<String> ORTHOGONAL = Set.of("orthogonalEdgeStyle", "elbowEdgeStyle", "segmentEdgeStyle", "entityRelationEdgeStyle");
+
+    private static final String FONT_FAMILY = "Helvetica";
+    private static final double FONT_SIZE = 12;
+    private static final double LINE_HEIGHT = 1.2;
+    /** Approximate width of a char relative to the font size, used for wrapping and label backgrounds. */
+    private static final double CHAR_WIDTH = 0.6;
+    private static final double SPACING = 2;
+    private static final double MARKER_SIZE = 6;
+    /** Margin around the diagram. */
+    private static final double BORDER = 1;
+
+    private final Map<String, Cell> cells = new LinkedHashMap<>();
+    private final StringBuilder defs = new StringBuilder();
+    private final StringBuilder body = new StringBuilder();
+    private double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+    private int gradients;
+
+    private SvgRenderer() {}
+
+    /**
+     * Renders a diagram.
+     * @param source DrawIO XML source.
+     * @return SVG document.
+     * @throws UnsupportedException the diagram contains not supported elements.
+     */
+    static String render(String source) throws UnsupportedException {
+        return new SvgRenderer().doRender(source);
+    }
+
+    private String doRender(String source) throws UnsupportedException {
+        Document xml = Jsoup.parse(source, "", Parser.xmlParser());
+        // only the first page is rendered
+        Element model = xml.selectFirst("mxGraphModel");
+        if (model == null)
+            throw new UnsupportedException("no plain mxGraphModel found");
+
+        for (Element element : model.select("mxCell")) {
+            Cell cell = new Cell(element);
+            cells.put(cell.id, cell);
+        }
+
+        for (Cell cell : cells.values())
+            if (cell.edge && cell.visible)
+                route(cell);
+
+        for (Cell cell : cells.values()) {
+            if (!cell.visible || !visible(cells.get(cell.parent)))
+                continue;
+            if (cell.edge)
+                edge(cell);
+            else if (cell.vertex)
+                vertex(cell);
+        }
+
+        if (minX > maxX) {
+            minX = minY = 0;
+            maxX = maxY = 0;
+        }
+
+        double width = Math.ceil(maxX - minX + 2 * BORDER);
+        double height = Math.ceil(maxY - minY + 2 * BORDER);
+
+        var result = new StringBuilder(body.length() + defs.length() + 500)
+            .append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+            .append("<svg xmlns=\"http://www.w3.org/2000/svg\" version=\"1.1\"")
+            .append(" width=\"").append(num(width)).append("px\" height=\"").append(num(height)).append("px\"")
+            .append(" viewBox=\"0 0 ").append(num(width)).append(" ").append(num(height)).append("\">\n");
+        if (defs.length() > 0)
+            result.append("<defs>\n").append(defs).append("</defs>\n");
+        result
+            .append("<g transform=\"translate(").append(num(BORDER - minX)).append(",").append(num(BORDER - minY)).append(")\">\n")
+            .append(body)
+            .append("</g>\n")
+            .append("</svg>\n");
+
+        return result.toString();
+    }
+
+    /**
+     * @param cell the parent cell or {@code null}.
+     * @return the cell and all its parents are visible.
+     */
+    private boolean visible(Cell cell) {
+        for (; cell != null; cell = cells.get(cell.parent))
+            if (!cell.visible)
+                return false;
+        return true;
+    }
+
+    /**
+     * Origin of a cell's coordinates, geometries of children are relative to vertex parents.
+     * @param cell the cell.
+     * @return the origin.
+     */
+    private Point origin(Cell cell) {
+        double x = 0, y = 0;
+        for (Cell parent = cells.get(cell.parent); parent != null; parent = cells.get(parent.parent)) {
+            if (parent.vertex && !parent.relative) {
+                x += parent.x;
+                y += parent.y;
+            }
+        }
+        return new Point(x, y);
+    }
+
+    private void vertex(Cell cell) throws UnsupportedException {
+        Cell parent = cells.get(cell.parent);
+        if (cell.relative) {
+            // label of an edge
+            if (parent != null && parent.edge) {
+                edgeLabel(cell, parent);
+                return;
+            }
+            throw new UnsupportedException("relative vertex geometry, cell: " + cell.id);
+        }
+
+        Point origin = origin(cell);
+        double x = origin.x + cell.x, y = origin.y + cell.y, w = cell.width, h = cell.height;
+
+        String shape = shape(cell);
+        boolean text = cell.names.contains("text") || cell.names.contains("edgeLabel");
+        boolean group = cell.names.contains("group");
+
+        String fill = text || group ? color(cell.style.get("fillColor"), "none") : color(cell.style.get("fillColor"), "#ffffff");
+        String stroke = text || group ? color(cell.style.get("strokeColor"), "none") : color(cell.style.get("strokeColor"), "#000000");
+        double strokeWidth = number(cell.style, "strokeWidth", 1);
+
+        String gradient = color(cell.style.get("gradientColor"), "none");
+        if (!"none".equals(fill) && !"none".equals(gradient))
+            fill = "url(#" + gradient(fill, gradient, cell.style.get("gradientDirection")) + ")";
+
+        var attrs = new StringBuilder(100)
+            .append(" fill=\"").append(fill).append("\" stroke=\"").append(stroke).append("\"");
+        if (!"none".equals(stroke))
+            attrs.append(" stroke-width=\"").append(num(strokeWidth)).append("\"");
+        paint(attrs, cell.style, strokeWidth);
+
+        double rotation = number(cell.style, "rotation", 0);
+        if (rotation != 0)
+            body.append("<g transform=\"rotate(").append(num(rotation)).append(",").append(num(x + w / 2)).append(",").append(num(y + h / 2)).append(")\">\n");
+
+        if (!"none".equals(fill) || !"none".equals(stroke)) {
+            switch (shape) {
+                case "ellipse" -> ellipse(attrs, x, y, w, h);
+                case "doubleEllipse" -> {
+                    ellipse(attrs, x, y, w, h);
+                    double inset = Math.min(4 + strokeWidth, Math.min(w, h) / 4);
+                    ellipse(new StringBuilder(attrs.toString().replaceFirst("fill=\"[^\"]*\"", "fill=\"none\"")),
+                        x + inset, y + inset, w - 2 * inset, h - 2 * inset);
+                }
+                case "rhombus" -> polygon(attrs, x + w / 2, y, x + w, y + h / 2, x + w / 2, y + h, x, y + h / 2);
+                case "triangle" -> triangle(attrs, cell.style.get("direction"), x, y, w, h);
+                case "hexagon" -> {
+                    double size = number(cell.style, "size", 0.25);
+                    double dx = "1".equals(cell.style.get("fixedSize")) ? Math.min(size, w / 2) : w * size;
+                    polygon(attrs, x + dx, y, x + w - dx, y, x + w, y + h / 2, x + w - dx, y + h, x + dx, y + h, x, y + h / 2);
+                }
+                case "cylinder", "cylinder3" -> cylinder(attrs, number(cell.style, "size", 15), x, y, w, h);
+                default -> rect(attrs, cell.style, x, y, w, h);
+            }
+            include(x - strokeWidth / 2, y - strokeWidth / 2);
+            include(x + w + strokeWidth / 2, y + h + strokeWidth / 2);
+        }
+
+        if (!group)
+            vertexLabel(cell, x, y, w, h);
+
+        if (rotation != 0)
+            body.append("</g>\n");
+    }
+
+    /**
+     * Determines shape of a vertex.
+     * @param cell the vertex.
+     * @return the shape from {@link #SHAPES}.
+     * @throws UnsupportedException the shape is not supported.
+     */
+    private String shape(Cell cell) throws UnsupportedException {
+        String result = cell.style.get("shape");
+        for (String name : cell.names) {
+            if (SHAPES.contains(name)) {
+                if (result == null)
+                    result = name;
+            } else if (!STYLES.contains(name))
+                throw new UnsupportedException("style '" + name + "', cell: " + cell.id);
+        }
+        if (result == null)
+            return "rectangle";
+        if (!SHAPES.contains(result))
+            throw new UnsupportedException("shape '" + result + "', cell: " + cell.id);
+        return result;
+    }
+
+    private void rect(StringBuilder attrs, Map<String, String> style, double x, double y, double w, double h) {
+        body.append("<rect x=\"").append(num(x)).append("\" y=\"").append(num(y))
+            .append("\" width=\"").append(num(w)).append("\" height=\"").append(num(h)).append("\"");
+        if ("1".equals(style.get("rounded"))) {
+            double arcSize = number(style, "arcSize", 15);
+            double r = "1".equals(style.get("absoluteArcSize")) ? arcSize / 2 : Math.min(w, h) * arcSize / 100;
+            r = Math.min(r, Math.min(w, h) / 2);
+            body.append(" rx=\"").append(num(r)).append("\" ry=\"").append(num(r)).append("\"");
+        }
+        body.append(attrs).append("/>\n");
+    }
+
+    private void ellipse(StringBuilder attrs, double x, double y, double w, double h) {
+        body.append("<ellipse cx=\"").append(num(x + w / 2)).append("\" cy=\"").append(num(y + h / 2))
+            .append("\" rx=\"").append(num(w / 2)).append("\" ry=\"").append(num(h / 2)).append("\"")
+            .append(attrs).append("/>\n");
+    }
+
+    private void polygon(StringBuilder attrs, double... coords) {
+        body.append("<polygon points=\"");
+        for (int i = 0; i < coords.length; i += 2) {
+            if (i > 0)
+                body.append(" ");
+            body.append(num(coords[i])).append(",").append(num(coords[i + 1]));
+        }
+        body.append("\"").append(attrs).append("/>\n");
+    }
+
+    private void triangle(StringBuilder attrs, String direction, double x, double y, double w, double h) {
+        switch (StringUtils.defaultString(direction, "east")) {
+            case "north" -> polygon(attrs, x, y + h, x + w / 2, y, x + w, y + h);
+            case "south" -> polygon(attrs, x, y, x + w, y, x + w / 2, y + h);
+            case "west" -> polygon(attrs, x + w, y, x, y + h / 2, x + w, y + h);
+            default -> polygon(attrs, x, y, x + w, y + h / 2, x, y + h);
+        }
+    }
+
+    private void cylinder(StringBuilder attrs, double size, double x, double y, double w, double h) {
+        double rx = w / 2, ry = Math.min(size, h) / 2;
+        body.append("<path d=\"")
+            .append("M").append(num(x)).append(",").append(num(y + ry))
+            .append(" A").append(num(rx)).append(",").append(num(ry)).append(" 0 0 1 ").append(num(x + w)).append(",").append(num(y + ry))
+            .append(" L").append(num(x + w)).append(",").append(num(y + h - ry))
+            .append(" A").append(num(rx)).append(",").append(num(ry)).append(" 0 0 1 ").append(num(x)).append(",").append(num(y + h - ry))
+            .append(" Z\"").append(attrs).append("/>\n");
+        // front edge of the top
+        body.append("<path d=\"")
+            .append("M").append(num(x)).append(",").append(num(y + ry))
+            .append(" A").append(num(rx)).append(",").append(num(ry)).append(" 0 0 0 ").append(num(x + w)).append(",").append(num(y + ry))
+            .append("\"").append(attrs.toString().replaceFirst("fill=\"[^\"]*\"", "fill=\"none\"")).append("/>\n");
+    }
+
+    /**
+     * Defines a linear gradient.
+     * @param from the fill color.
+     * @param to the gradient color.
+     * @param direction the gradient direction, 'south' by default.
+     * @return the gradient ID.
+     */
+    private String gradient(String from, String to, String direction) {
+        String id = "gradient" + (++gradients);
+        String coords = switch (StringUtils.defaultString(direction, "south")) {
+            case "north" -> "x1=\"0\" y1=\"1\" x2=\"0\" y2=\"0\"";
+            case "east" -> "x1=\"0\" y1=\"0\" x2=\"1\" y2=\"0\"";
+            case "west" -> "x1=\"1\" y1=\"0\" x2=\"0\" y2=\"0\"";
+            default -> "x1=\"0\" y1=\"0\" x2=\"0\" y2=\"1\"";
+        };
+        defs.append("<linearGradient id=\"").append(id).append("\" ").append(coords).append(">")
+            .append("<stop offset=\"0%\" stop-color=\"").append(from).append("\"/>")
+            .append("<stop offset=\"100%\" stop-color=\"").append(to).append("\"/>")
+            .append("</linearGradient>\n");
+        return id;
+    }
+
+    /**
+     * Appends dash and opacity attributes.
+     * @param attrs the attributes.
+     * @param style the style.
+     * @param strokeWidth the stroke width.
+     */
+    private void paint(StringBuilder attrs, Map<String, String> style, double strokeWidth) {
+        if ("1".equals(style.get("dashed"))) {
+            String pattern = StringUtils.defaultIfBlank(style.get("dashPattern"), "3 3");
+            attrs.append(" stroke-dasharray=\"");
+            String[] dashes = pattern.trim().split("\\s+");
+            for (int i = 0; i < dashes.length; i++) {
+                if (i > 0)
+                    attrs.append(" ");
+                attrs.append(num(NumberUtils.toDouble(dashes[i], 3) * strokeWidth));
+            }
+            attrs.append("\"");
+        }
+        opacity(attrs, style, "opacity", "opacity");
+        opacity(attrs, style, "fillOpacity", "fill-opacity");
+        opacity(attrs, style, "strokeOpacity", "stroke-opacity");
+    }
+
+    private void opacity(StringBuilder attrs, Map<String, String> style, String key, String attr) {
+        double value = number(style, key, 100);
+        if (value < 100)
+            attrs.append(" ").append(attr).append("=\"").append(num(value / 100)).append("\"");
+    }
+
+    /**
+     * Computes points of an edge.
+     * @param edge the edge.
+     * @throws UnsupportedException
+     */
+    private void route(Cell edge) throws UnsupportedException {
+        Point origin = origin(edge);
+        Cell source = cells.get(edge.source);
+        Cell target = cells.get(edge.target);
+
+        List<Point> points = new ArrayList<>();
+        for (Point point : edge.points)
+            points.add(point.move(origin.x, origin.y));
+
+        Bounds sourceBounds = bounds(source);
+        Bounds targetBounds = bounds(target);
+        if (sourceBounds == null && edge.sourcePoint == null || targetBounds == null && edge.targetPoint == null)
+            throw new UnsupportedException("not connected edge, cell: " + edge.id);
+
+        String shape = StringUtils.defaultIfBlank(edge.style.get("shape"), "connector");
+        if (!"connector".equals(shape))
+            throw new UnsupportedException("edge shape '" + shape + "', cell: " + edge.id);
+
+        String edgeStyle = StringUtils.defaultIfBlank(edge.style.get("edgeStyle"), "none");
+        boolean orthogonal = ORTHOGONAL.contains(edgeStyle);
+        if (!orthogonal && !"none".equals(edgeStyle))
+            throw new UnsupportedException("edge style '" + edgeStyle + "', cell: " + edge.id);
+
+        Port start = sourceBounds == null ? new Port(edge.sourcePoint.move(origin.x, origin.y), null)
+            : port(edge.style, "exit", sourceBounds, points.isEmpty() ? center(targetBounds, edge.targetPoint, origin) : points.get(0), orthogonal);
+        Port end = targetBounds == null ? new Port(edge.targetPoint.move(origin.x, origin.y), null)
+            : port(edge.style, "entry", targetBounds, points.isEmpty() ? center(sourceBounds, edge.sourcePoint, origin) : points.get(points.size() - 1), orthogonal);
+
+        List<Point> route = new ArrayList<>();
+        route.add(start.point);
+        if (orthogonal)
+            orthogonal(route, start, points, end);
+        else
+            route.addAll(points);
+        route.add(end.point);
+
+        edge.route = route;
+    }
+
+    private Point center(Bounds bounds, Point point, Point origin) {
+        return bounds != null ? new Point(bounds.x + bounds.w / 2, bounds.y + bounds.h / 2) : point.move(origin.x, origin.y);
+    }
+
+    /**
+     * Absolute bounds of an edge terminal.
+     * @param cell the terminal vertex or {@code null}.
+     * @return the bounds or {@code null}.
+     */
+    private Bounds bounds(Cell cell) {
+        if (cell == null || !cell.vertex || cell.relative)
+            return null;
+        Point origin = origin(cell);
+        var result = new Bounds(origin.x + cell.x, origin.y + cell.y, cell.width, cell.height);
+        String shape = StringUtils.defaultString(cell.style.get("shape"), cell.names.isEmpty() ? "rectangle" : cell.names.get(0));
+        result.perimeter = switch (shape) {
+            case "ellipse", "doubleEllipse", "rhombus" -> shape;
+            default -> "rectangle";
+        };
+        return result;
+    }
+
+    /**
+     * Determines a connection point of an edge terminal.
+     * @param style the edge style.
+     * @param prefix 'exit' or 'entry' for the source and the target.
+     * @param bounds the terminal bounds.
+     * @param next the next point to the terminal.
+     * @param orthogonal the edge is routed orthogonally.
+     * @return the port.
+     */
+    private Port port(Map<String, String> style, String prefix, Bounds bounds, Point next, boolean orthogonal) {
+        double cx = bounds.x + bounds.w / 2, cy = bounds.y + bounds.h / 2;
+
+        String fx = style.get(prefix + "X"), fy = style.get(prefix + "Y");
+        if (fx != null && fy != null) {
+            double rx = NumberUtils.toDouble(fx, 0.5), ry = NumberUtils.toDouble(fy, 0.5);
+            var point = new Point(bounds.x + rx * bounds.w + number(style, prefix + "Dx", 0), bounds.y + ry * bounds.h + number(style, prefix + "Dy", 0));
+            // side of the bounds, the closest to the point
+            boolean horizontal = Math.abs(rx - 0.5) * bounds.h >= Math.abs(ry - 0.5) * bounds.w;
+            return new Port(point, horizontal);
+        }
+
+        if (orthogonal) {
+            // side, facing the next point, the edge goes straight if the point is in front of the side
+            boolean outsideX = next.x < bounds.x || next.x > bounds.x + bounds.w;
+            boolean outsideY = next.y < bounds.y || next.y > bounds.y + bounds.h;
+            boolean horizontal = outsideX && (!outsideY || Math.abs(next.x - cx) * bounds.h >= Math.abs(next.y - cy) * bounds.w);
+            if (horizontal)
+                return new Port(new Point(next.x < cx ? bounds.x : bounds.x + bounds.w, outsideY ? cy : next.y), true);
+            return new Port(new Point(outsideX ? cx : next.x, next.y < cy ? bounds.y : bounds.y + bounds.h), false);
+        }
+
+        // intersection of the line to the next point with the perimeter
+        double dx = next.x - cx, dy = next.y - cy;
+        if (dx == 0 && dy == 0)
+            return new Port(new Point(cx, cy), null);
+        double a = bounds.w / 2, b = bounds.h / 2;
+        double t = switch (bounds.perimeter) {
+            case "ellipse", "doubleEllipse" -> 1 / Math.sqrt(dx * dx / (a * a) + dy * dy / (b * b));
+            case "rhombus" -> 1 / (Math.abs(dx) / a + Math.abs(dy) / b);
+            default -> Math.min(dx == 0 ? Double.MAX_VALUE : a / Math.abs(dx), dy == 0 ? Double.MAX_VALUE : b / Math.abs(dy));
+        };
+        return new Port(new Point(cx + dx * t, cy + dy * t), null);
+    }
+
+    /**
+     * Adds orthogonal segments between terminals and waypoints.
+     * @param route the route with the start point.
+     * @param start the source port.
+     * @param points the waypoints.
+     * @param end the target port.
+     */
+    private void orthogonal(List<Point> route, Port start, List<Point> points, Port end) {
+        boolean startHorizontal = start.horizontal == null || start.horizontal;
+        boolean endHorizontal = end.horizontal == null || end.horizontal;
+
+        if (points.isEmpty()) {
+            Point a = start.point, b = end.point;
+            if (a.x == b.x || a.y == b.y)
+                return;
+            if (startHorizontal && endHorizontal) {
+                double mx = (a.x + b.x) / 2;
+                route.add(new Point(mx, a.y));
+                route.add(new Point(mx, b.y));
+            } else if (!startHorizontal && !endHorizontal) {
+                double my = (a.y + b.y) / 2;
+                route.add(new Point(a.x, my));
+                route.add(new Point(b.x, my));
+            } else if (startHorizontal)
+                route.add(new Point(b.x, a.y));
+            else
+                route.add(new Point(a.x, b.y));
+            return;
+        }
+
+        List<Point> all = new ArrayList<>(points);
+        all.add(end.point);
+        Point a = start.point;
+        boolean horizontal = startHorizontal;
+        for (int i = 0; i < all.size(); i++) {
+            Point b = all.get(i);
+            boolean last = i == all.size() - 1;
+            if (a.x != b.x && a.y != b.y) {
+                // the last segment enters the target from the port side
+                if (last ? !endHorizontal : horizontal)
+                    route.add(new Point(b.x, a.y));
+                else
+                    route.add(new Point(a.x, b.y));
+            }
+            horizontal = !horizontal;
+            if (!last)
+                route.add(b);
+            a = b;
+        }
+    }
+
+    private void edge(Cell edge) throws UnsupportedException {
+        List<Point> route = edge.route;
+        String stroke = color(edge.style.get("strokeColor"), "#000000");
+        double strokeWidth = number(edge.style, "strokeWidth", 1);
+
+        var attrs = new StringBuilder(100)
+            .append(" fill=\"none\" stroke=\"").append(stroke).append("\" stroke-width=\"").append(num(strokeWidth)).append("\"");
+        paint(attrs, edge.style, strokeWidth);
+
+        var markers = new StringBuilder();
+        List<Point> line = new ArrayList<>(route);
+        line.set(line.size() - 1, marker(markers, edge, "end", "classic", line.get(line.size() - 1), line.get(line.size() - 2), stroke, strokeWidth));
+        line.set(0, marker(markers, edge, "start", "none", line.get(0), line.get(1), stroke, strokeWidth));
+
+        if (!"none".equals(stroke)) {
+            body.append("<path d=\"");
+            for (int i = 0; i < line.size(); i++) {
+                Point point = line.get(i);
+                body.append(i == 0 ? "M" : " L").append(num(point.x)).append(",").append(num(point.y));
+                include(point.x - strokeWidth, point.y - strokeWidth);
+                include(point.x + strokeWidth, point.y + strokeWidth);
+            }
+            body.append("\"").append(attrs).append("/>\n");
+            body.append(markers);
+        }
+
+        if (StringUtils.isNotBlank(edge.value)) {
+            Point point = along(route, 0.5);
+            if (edge.offset != null)
+                point = point.move(edge.offset.x, edge.offset.y);
+            label(edge.value, edge.style, point.x, point.y, 0, 0, true);
+        }
+    }
+
+    private void edgeLabel(Cell cell, Cell edge) {
+        if (edge.route == null || StringUtils.isBlank(cell.value))
+            return;
+        Point point = along(edge.route, (Math.max(-1, Math.min(1, cell.x)) + 1) / 2);
+        if (cell.offset != null)
+            point = point.move(cell.offset.x, cell.offset.y);
+        label(cell.value, cell.style, point.x, point.y, 0, 0, true);
+    }
+
+    /**
+     * Draws an arrow marker.
+     * @param svg the output.
+     * @param edge the edge.
+     * @param prefix 'start' or 'end'.
+     * @param defaultType the marker type by default.
+     * @param tip the terminal point.
+     * @param from the previous point of the edge.
+     * @param stroke the stroke color.
+     * @param strokeWidth the stroke width.
+     * @return the point where the line has to be finished.
+     * @throws UnsupportedException the marker type is not supported.
+     */
+    private Point marker(StringBuilder svg, Cell edge, String prefix, String defaultType,
+            Point tip, Point from, String stroke, double strokeWidth) throws UnsupportedException {
+        Map<String, String> style = edge.style;
+        String type = StringUtils.defaultIfBlank(style.get(prefix + "Arrow"), defaultType);
+        double distance = Math.hypot(tip.x - from.x, tip.y - from.y);
+        if ("none".equals(type) || distance == 0)
+            return tip;
+
+        double size = number(style, prefix + "Size", MARKER_SIZE) + strokeWidth - 1;
+        boolean filled = !"0".equals(style.get(prefix + "Fill"));
+        String fill = filled ? stroke : "#ffffff";
+        // unit vector back from the tip and normal to it
+        double ux = (from.x - tip.x) / distance, uy = (from.y - tip.y) / distance;
+        double nx = -uy, ny = ux;
+
+        double length = size * 1.5;
+        double half = type.endsWith("Thin") ? size * 0.35 : size * 0.6;
+        String attrs = " fill=\"" + fill + "\" stroke=\"" + stroke + "\" stroke-width=\"" + num(strokeWidth) + "\"";
+
+        switch (type) {
+            case "open", "openThin" -> {
+                svg.append("<path d=\"M").append(point(tip.x + ux * length + nx * half, tip.y + uy * length + ny * half))
+                    .append(" L").append(point(tip.x, tip.y))
+                    .append(" L").append(point(tip.x + ux * length - nx * half, tip.y + uy * length - ny * half))
+                    .append("\" fill=\"none\" stroke=\"").append(stroke).append("\" stroke-width=\"").append(num(strokeWidth)).append("\"/>\n");
+                return tip;
+            }
+            case "oval" -> {
+                double r = size / 2;
+                svg.append("<circle cx=\"").append(num(tip.x + ux * r)).append("\" cy=\"").append(num(tip.y + uy * r))
+                    .append("\" r=\"").append(num(r)).append("\"").append(attrs).append("/>\n");
+                return new Point(tip.x + ux * size, tip.y + uy * size);
+            }
+            case "diamond", "diamondThin" -> {
+                svg.append("<polygon points=\"").append(point(tip.x, tip.y))
+                    .append(" ").append(point(tip.x + ux * length / 2 + nx * half, tip.y + uy * length / 2 + ny * half))
+                    .append(" ").append(point(tip.x + ux * length, tip.y + uy * length))
+                    .append(" ").append(point(tip.x + ux * length / 2 - nx * half, tip.y + uy * length / 2 - ny * half))
+                    .append("\"").append(attrs).append("/>\n");
+                return new Point(tip.x + ux * length, tip.y + uy * length);
+            }
+            case "block", "blockThin" -> {
+                svg.append("<polygon points=\"").append(point(tip.x, tip.y))
+                    .append(" ").append(point(tip.x + ux * length + nx * half, tip.y + uy * length + ny * half))
+                    .append(" ").append(point(tip.x + ux * length - nx * half, tip.y + uy * length - ny * half))
+                    .append("\"").append(attrs).append("/>\n");
+                return new Point(tip.x + ux * length, tip.y + uy * length);
+            }
+            case "classic", "classicThin" -> {
+                // arrow with a notch
+                double notch = length * 0.75;
+                svg.append("<polygon points=\"").append(point(tip.x, tip.y))
+                    .append(" ").append(point(tip.x + ux * length + nx * half, tip.y + uy * length + ny * half))
+                    .append(" ").append(point(tip.x + ux * notch, tip.y + uy * notch))
+                    .append(" ").append(point(tip.x + ux * length - nx * half, tip.y + uy * length - ny * half))
+                    .append("\"").append(attrs).append("/>\n");
+                return new Point(tip.x + ux * notch, tip.y + uy * notch);
+            }
+            default -> throw new UnsupportedException(prefix + " arrow '" + type + "', cell: " + edge.id);
+        }
+    }
+
+    /**
+     * Finds a point on a polyline.
+     * @param route the polyline.
+     * @param fraction fraction of the polyline length from 0 to 1.
+     * @return the point.
+     */
+    private static Point along(List<Point> route, double fraction) {
+        double length = 0;
+        for (int i = 1; i < route.size(); i++)
+            length += Math.hypot(route.get(i).x - route.get(i - 1).x, route.get(i).y - route.get(i - 1).y);
+
+        double remaining = length * fraction;
+        for (int i = 1; i < route.size(); i++) {
+            Point a = route.get(i - 1), b = route.get(i);
+            double segment = Math.hypot(b.x - a.x, b.y - a.y);
+            if (remaining <= segment && segment > 0)
+                return new Point(a.x + (b.x - a.x) * remaining / segment, a.y + (b.y - a.y) * remaining / segment);
+            remaining -= segment;
+        }
+        return route.get(route.size() - 1);
+    }
+
+    private void vertexLabel(Cell cell, double x, double y, double w, double h) {
+        if (StringUtils.isBlank(cell.value))
+            return;
+
+        // label outside of the shape
+        switch (StringUtils.defaultString(cell.style.get("labelPosition"))) {
+            case "left" -> x -= w;
+            case "right" -> x += w;
+        }
+        switch (StringUtils.defaultString(cell.style.get("verticalLabelPosition"))) {
+            case "top" -> y -= h;
+            case "bottom" -> y += h;
+        }
+
+        label(cell.value, cell.style, x, y, w, h, cell.names.contains("edgeLabel"));
+    }
+
+    /**
+     * Draws a text label.
+     * @param value the label value, may be HTML.
+     * @param style the cell style.
+     * @param x the label box X.
+     * @param y the label box Y.
+     * @param w the label box width, 0 for labels centered on a point.
+     * @param h the label box height.
+     * @param edge the label belongs to an edge, it has a white background by default.
+     */
+    private void label(String value, Map<String, String> style, double x, double y, double w, double h, boolean edge) {
+        double size = number(style, "fontSize", FONT_SIZE);
+        double spacing = number(style, "spacing", SPACING);
+        int fontStyle = (int) number(style, "fontStyle", 0);
+
+        List<String> lines = lines(value, "1".equals(style.get("html")));
+        if ("wrap".equals(style.get("whiteSpace")) && w > 2 * spacing)
+            lines = wrap(lines, (int) ((w - 2 * spacing) / (size * CHAR_WIDTH)));
+        if (lines.isEmpty())
+            return;
+
+        String align = StringUtils.defaultString(edge ? null : style.get("align"), "center");
+        String verticalAlign = StringUtils.defaultString(edge ? null : style.get("verticalAlign"), "middle");
+
+        double lineHeight = size * LINE_HEIGHT;
+        double height = lines.size() * lineHeight;
+        double width = 0;
+        for (String line : lines)
+            width = Math.max(width, line.length() * size * CHAR_WIDTH);
+
+        double anchorX = switch (align) {
+            case "left" -> x + spacing;
+            case "right" -> x + w - spacing;
+            default -> x + w / 2;
+        };
+        double top = switch (verticalAlign) {
+            case "top" -> y + spacing;
+            case "bottom" -> y + h - spacing - height;
+            default -> y + (h - height) / 2;
+        };
+        double left = switch (align) {
+            case "left" -> anchorX;
+            case "right" -> anchorX - width;
+            default -> anchorX - width / 2;
+        };
+
+        String background = color(style.get("labelBackgroundColor"), edge ? "#ffffff" : "none");
+        if (!"none".equals(background))
+            body.append("<rect x=\"").append(num(left - 1)).append("\" y=\"").append(num(top)).append("\" width=\"").append(num(width + 2))
+                .append("\" height=\"").append(num(height)).append("\" fill=\"").append(background).append("\" stroke=\"none\"/>\n");
+
+        include(left, top);
+        include(left + width, top + height);
+
+        body.append("<text x=\"").append(num(anchorX)).append("\" y=\"").append(num(top + size))
+            .append("\" fill=\"").append(color(style.get("fontColor"), "#000000")).append("\"")
+            .append(" font-family=\"").append(escape(StringUtils.defaultIfBlank(style.get("fontFamily"), FONT_FAMILY))).append("\"")
+            .append(" font-size=\"").append(num(size)).append("px\"")
+            .append(" text-anchor=\"").append(switch (align) { case "left" -> "start"; case "right" -> "end"; default -> "middle"; }).append("\"");
+        if ((fontStyle & 1) != 0)
+            body.append(" font-weight=\"bold\"");
+        if ((fontStyle & 2) != 0)
+            body.append(" font-style=\"italic\"");
+        if ((fontStyle & 4) != 0)
+            body.append(" text-decoration=\"underline\"");
+        opacity(body, style, "textOpacity", "fill-opacity");
+        body.append(">");
+
+        for (int i = 0; i < lines.size(); i++) {
+            if (i == 0)
+                body.append("<tspan x=\"").append(num(anchorX)).append("\">");
+            else
+                body.append("<tspan x=\"").append(num(anchorX)).append("\" dy=\"").append(num(lineHeight)).append("\">");
+            body.append(escape(lines.get(i))).append("</tspan>");
+        }
+        body.append("</text>\n");
+    }
+
+    /**
+     * Splits label to lines.
+     * @param value the label.
+     * @param html the label is HTML, only its text is taken.
+     * @return the lines.
+     */
+    static List<String> lines(String value, boolean html) {
+        if (html) {
+            value = value
+                .replaceAll("(?i)<br\\s*/?>", "\n")
+                .replaceAll("(?i)</(div|p|li)>", "\n")
+                .replaceAll("<[^>]*>", "");
+            value = Parser.unescapeEntities(value, false).replace('\u00A0', ' ');
+        }
+        List<String> result = new ArrayList<>();
+        for (String line : value.split("\n"))
+            result.add(line.strip());
+        while (!result.isEmpty() && result.get(result.size() - 1).isEmpty())
+            result.remove(result.size() - 1);
+        return result;
+    }
+
+    /**
+     * Wraps lines by words.
+     * @param lines the lines.
+     * @param chars max count of chars in a line.
+     * @return wrapped lines.
+     */
+    static List<String> wrap(List<String> lines, int chars) {
+        if (chars <= 0)
+            return lines;
+        List<String> result = new ArrayList<>();
+        for (String line : lines) {
+            var current = new StringBuilder();
+            for (String word : line.split(" ")) {
+                if (current.length() > 0 && current.length() + 1 + word.length() > chars) {
+                    result.add(current.toString());
+                    current.setLength(0);
+                }
+                if (current.length() > 0)
+                    current.append(' ');
+                current.append(word);
+            }
+            result.add(current.toString());
+        }
+        return result;
+    }
+
+    private void include(double x, double y) {
+        minX = Math.min(minX, x);
+        minY = Math.min(minY, y);
+        maxX = Math.max(maxX, x);
+        maxY = Math.max(maxY, y);
+    }
+
+    /**
+     * Converts a style color.
+     * @param value the style value, may be {@code null}.
+     * @param defaultValue the color by default.
+     * @return the color or 'none'.
+     */
+    private static String color(String value, String defaultValue) {
+        if (StringUtils.isBlank(value) || "default".equals(value))
+            return defaultValue;
+        // colors for light and dark themes
+        if (value.startsWith("light-dark("))
+            value = StringUtils.substringBetween(value, "(", ",");
+        return escape(value.trim());
+    }
+
+    private static double number(Map<String, String> style, String key, double defaultValue) {
+        return NumberUtils.toDouble(style.get(key), defaultValue);
+    }
+
+    private static String point(double x, double y) {
+        return num(x) + "," + num(y);
+    }
+
+    /**
+     * Formats a number with max two fraction digits.
+     * @param value the number.
+     * @return the string.
+     */
+    static String num(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP).stripTrailingZeros().toPlainString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    /**
+     * Diagram cell: vertex, edge, layer or root.
+     */
+    private static class Cell {
+        private final String id;
+        private final String parent;
+        private final String value;
+        private final String source;
+        private final String target;
+        private final boolean vertex;
+        private final boolean edge;
+        private final boolean visible;
+        /** Style names, not having values, e.g. 'ellipse' or 'text'. */
+        private final List<String> names = new ArrayList<>();
+        private final Map<String, String> style = new HashMap<>();
+
+        private double x, y, width, height;
+        private boolean relative;
+        private final List<Point> points = new ArrayList<>();
+        private Point sourcePoint, targetPoint, offset;
+
+        /** Computed points of an edge. */
+        private List<Point> route;
+
+        private Cell(Element element) throws UnsupportedException {
+            // cells with custom properties are wrapped to 'object' or 'UserObject' elements
+            Element wrapper = element.parent();
+            boolean wrapped = wrapper != null && ("object".equals(wrapper.normalName()) || "userobject".equals(wrapper.normalName()));
+
+            id = wrapped ? wrapper.attr("id") : element.attr("id");
+            value = wrapped ? wrapper.attr("label") : element.attr("value");
+            parent = element.attr("parent");
+            source = element.attr("source");
+            target = element.attr("target");
+            vertex = "1".equals(element.attr("vertex"));
+            edge = "1".equals(element.attr("edge"));
+            visible = !"0".equals(element.attr("visible"));
+
+            for (String token : element.attr("style").split(";")) {
+                token = token.trim();
+                if (token.isEmpty())
+                    continue;
+                int pos = token.indexOf('=');
+                if (pos < 0)
+                    names.add(token);
+                else
+                    style.put(token.substring(0, pos), token.substring(pos + 1));
+            }
+
+            if (value.contains("<img"))
+                throw new UnsupportedException("image in label, cell: " + id);
+            if ("image".equals(style.get("shape")) || style.containsKey("image"))
+                throw new UnsupportedException("image, cell: " + id);
+
+            for (Element geometry : element.children()) {
+                if (!"mxgeometry".equals(geometry.normalName()))
+                    continue;
+                x = NumberUtils.toDouble(geometry.attr("x"));
+                y = NumberUtils.toDouble(geometry.attr("y"));
+                width = NumberUtils.toDouble(geometry.attr("width"));
+                height = NumberUtils.toDouble(geometry.attr("height"));
+                relative = "1".equals(geometry.attr("relative"));
+
+                for (Element child : geometry.children()) {
+                    if ("mxpoint".equals(child.normalName())) {
+                        switch (child.attr("as")) {
+                            case "sourcePoint" -> sourcePoint = new Point(child);
+                            case "targetPoint" -> targetPoint = new Point(child);
+                            case "offset" -> offset = new Point(child);
+                        }
+                    } else if ("array".equals(child.normalName()) && "points".equals(child.attr("as"))) {
+                        for (Element point : child.children())
+                            points.add(new Point(point));
+                    }
+                }
+            }
+        }
+    }
+
+    private static class Point {
+        private final double x;
+        private final double y;
+
+        private Point(double x, double y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        private Point(Element element) {
+            this(NumberUtils.toDouble(element.attr("x")), NumberUtils.toDouble(element.attr("y")));
+        }
+
+        private Point move(double dx, double dy) {
+            return new Point(x + dx, y + dy);
+        }
+    }
+
+    private static class Bounds {
+        private final double x, y, w, h;
+        /** Shape for calculating intersections with edges. */
+        private String perimeter;
+
+        private Bounds(double x, double y, double w, double h) {
+            this.x = x;
+            this.y = y;
+            this.w = w;
+            this.h = h;
+        }
+    }
+
+    /**
+     * Connection point of an edge.
+     */
+    private static class Port {
+        private final Point point;
+        /** Direction of the edge from the point, {@code null} - any. */
+        private final Boolean horizontal;
+
+        private Port(Point point, Boolean horizontal) {
+            this.point = point;
+            this.horizontal = horizontal;
+        }
+    }
+
+    /**
+     * The diagram can't be rendered by the built-in renderer.
+     */
+    static class UnsupportedException extends Exception {
+        UnsupportedException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.pzdcdoc.processor.snippet;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Index of a file lines by their trimmed content, used for finding of moved snippets.
+ * Lines are sorted by content and by reversed content, so the lines starting and ending on the given strings
+ * are found with binary search in any place of the file.
+ *
+ * @author Shamil Vakhitov
+ */
+class LineIndex {
+    /** Trimmed lines, sorted. */
+    private final String[] starts;
+    /** 1 based numbers of {@link #starts}. */
+    private final int[] startNums;
+    /** Reversed trimmed lines, sorted. */
+    private final String[] ends;
+    /** 1 based numbers of {@link #ends}. */
+    private final int[] endNums;
+
+    /**
+     * Constructor
+     * @param lines the file lines.
+     */
+    LineIndex(List<String> lines) {
+        String[] trimmed = new String[lines.size()];
+        String[] reversed = new String[lines.size()];
+        for (int i = 0; i < trimmed.length; i++) {
+            trimmed[i] = lines.get(i).trim();
+            reversed[i] = StringUtils.reverse(trimmed[i]);
+        }
+
+        startNums = sort(trimmed);
+        starts = keys(trimmed, startNums);
+        endNums = sort(reversed);
+        ends = keys(reversed, endNums);
+    }
+
+    private static int[] sort(String[] keys) {
+        return IntStream.range(0, keys.length).boxed()
+            .sorted(Comparator.comparing((Integer i) -> keys[i]))
+            .mapToInt(i -> i + 1)
+            .toArray();
+    }
+
+    private static String[] keys(String[] keys, int[] nums) {
+        String[] result = new String[nums.length];
+        for (int i = 0; i < nums.length; i++)
+            result[i] = keys[nums[i] - 1];
+        return result;
+    }
+
+    /**
+     * Finds lines, which trimmed content starts from a prefix, the same as {@link LineFunction.Starts} checks.
+     * @param prefix the prefix.
+     * @param near the line number, the result is sorted by distance to it.
+     * @return the line numbers, 1 based.
+     */
+    int[] starts(String prefix, int near) {
+        return find(starts, startNums, prefix, near);
+    }
+
+    /**
+     * Finds lines, which trimmed content ends on a suffix, the same as {@link LineFunction.Ends} checks.
+     * @param suffix the suffix.
+     * @param near the line number, the result is sorted by distance to it.
+     * @return the line numbers, 1 based.
+     */
+    int[] ends(String suffix, int near) {
+        return find(ends, endNums, StringUtils.reverse(suffix), near);
+    }
+
+    /**
+     * @return approximate size in heap.
+     */
+    long weight() {
+        // references and numbers in both the orders
+        long result = 24L * starts.length;
+        // a straight and a reversed string for each line
+        for (String key : starts)
+            result += 2 * (2L * key.length() + 40);
+        return result;
+    }
+
+    private static int[] find(String[] keys, int[] nums, String prefix, int near) {
+        // the first key, not less than the prefix
+        int pos = 0;
+        for (int to = keys.length; pos < to;) {
+            int mid = (pos + to) >>> 1;
+            if (keys[mid].compareTo(prefix) < 0)
+                pos = mid + 1;
+            else
+                to = mid;
+        }
+
+        int end = pos;
+        while (end < keys.length && keys[end].startsWith(prefix))
+            end++;
+
+        return IntStream.of(Arrays.copyOfRange(nums, pos, end)).boxed()
+            .sorted(Comparator.comparingInt((Integer num) -> Math.abs(num - near)).thenComparingInt(num -> num))
+            .mapToInt(num -> num)
+            .toArray();
+    }
+}
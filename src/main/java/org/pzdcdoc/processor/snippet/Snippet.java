@@ -1,7 +1,6 @@
 package org.pzdcdoc.processor.snippet;
 
 import java.io.File;
-import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -9,6 +8,7 @@ import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.logging.log4j.LogManager;
@@ -19,6 +19,7 @@ import org.asciidoctor.extension.BlockProcessor;
 import org.asciidoctor.extension.Name;
 import org.asciidoctor.extension.Reader;
 import org.pzdcdoc.Generator;
+import org.pzdcdoc.Report;
 
 /**
  * AsciiDoctor-J processor supporting 'live snippets'.
@@ -31,8 +32,16 @@ public class Snippet extends BlockProcessor {
     private static final Logger log = LogManager.getLogger();
 
     private static final String LINK_PREFIX = "link:";
+    /** Block attribute, enabling relocation of moved snippets. */
+    private static final String ATTR_RELOCATE = "relocate";
+    /** Document attribute, enabling relocation of moved snippets for all the blocks. */
+    private static final String ATTR_DOC_RELOCATE = "pzdc-snippet-relocate";
+
     private static final Pattern LINES_RANGE = Pattern.compile("L(\\d+)(\\-L(\\d+))?");
 
+    /** Source files, shared between all the pages and threads. */
+    private static final SourceCache SOURCES = new SourceCache(SourceCache.MAX_BYTES);
+
     /** Constructor */
     public Snippet() {
     }
@@ -44,7 +53,7 @@ public class Snippet extends BlockProcessor {
         Generator generator = (Generator) parent.getDocument().getAttribute(Generator.ATTR_GENERATOR);
 
         List<String> contentList = new ArrayList<>(100);
-        try {
+        try (var timer = generator.time(Report.Phase.SNIPPET)) {
             if (content.startsWith(LINK_PREFIX)) {
                 String path = content.substring(LINK_PREFIX.length());
 
@@ -60,10 +69,11 @@ public class Snippet extends BlockProcessor {
                     throw new Exception("Not found source file attribute.");
 
                 File snippet = source.toPath().getParent().resolve(path).toFile();
+                generator.input(snippet.toPath());
                 if (!snippet.exists())
                     throw new Exception("File doesn't exist: " + snippet);
 
-                List<String> lines = Files.readAllLines(snippet.toPath());
+                List<String> lines = SOURCES.lines(snippet.toPath());
                 int lineFrom = 1;
                 int lineTo = lines.size();
 
@@ -79,6 +89,12 @@ public class Snippet extends BlockProcessor {
                     }
                 }
 
+                if (isRelocate(attributes.get(ATTR_RELOCATE), parent.getDocument().getAttribute(ATTR_DOC_RELOCATE))) {
+                    int[] range = relocate(path, attributes, lines, lineFrom, lineTo);
+                    lineFrom = range[0];
+                    lineTo = range[1];
+                }
+
                 // TODO: Make mapping extension - lang
                 String lang = StringUtils.substringAfterLast(path, ".");
 
@@ -99,6 +115,18 @@ public class Snippet extends BlockProcessor {
         return createBlock(parent, "listing", contentList, attributes);
     }
 
+    /**
+     * Checks if relocation of moved snippets is enabled, the block attribute overwrites the document one.
+     * @param value the block attribute value, may be {@code null}.
+     * @param docValue the document attribute value, may be {@code null}, the empty value of a defined attribute means {@code true}.
+     * @return the relocation is enabled.
+     */
+    static boolean isRelocate(Object value, Object docValue) {
+        if (value == null)
+            value = docValue;
+        return value != null && (value.toString().isEmpty() || BooleanUtils.toBoolean(value.toString()));
+    }
+
     /**
      * Adds generated commented line at beginning of snippet.
      * @param path snippet's file path.
@@ -114,6 +142,72 @@ public class Snippet extends BlockProcessor {
         contentList.add("");
     }
 
+    /**
+     * Moves a snippet's lines range to the lines, matching 'from' and 'to' attributes, in any place of the file.
+     * @param path snippet's file path.
+     * @param attributes Asciidoctor-J attributes.
+     * @param lines snippet's file lines.
+     * @param lineFrom line from, 1 based.
+     * @param lineTo line end, 1 based.
+     * @return the new line from and line end.
+     */
+    private int[] relocate(String path, Map<String, Object> attributes, List<String> lines, int lineFrom, int lineTo) {
+        String from = (String) attributes.get("from");
+        String to = (String) attributes.get("to");
+
+        LineFunction fromF = from != null ? new LineFunction.Starts(from) : LineFunction.PASS;
+        LineFunction toF = to != null ? new LineFunction.Ends(to) : LineFunction.PASS;
+        if (lines.isEmpty() || (fromF.apply(lines.get(lineFrom - 1)) && toF.apply(lines.get(lineTo - 1))))
+            return new int[] { lineFrom, lineTo };
+
+        LineIndex index = SOURCES.index(lines);
+        int span = lineTo - lineFrom;
+
+        int newFrom = lineFrom;
+        int newTo = end(index, to, lineTo, lineFrom, lines.size());
+        if (newTo < 0)
+            newTo = lineTo;
+
+        if (!fromF.apply(lines.get(lineFrom - 1))) {
+            // the nearest place, where the snippet's length is changed the least
+            int minDiff = Integer.MAX_VALUE;
+            for (int line : index.starts(from, lineFrom)) {
+                int end = end(index, to, line + span, line, lines.size());
+                int diff = end < 0 ? Integer.MAX_VALUE - 1 : Math.abs(end - line - span);
+                if (diff < minDiff) {
+                    minDiff = diff;
+                    newFrom = line;
+                    newTo = end < 0 ? Math.min(line + span, lines.size()) : end;
+                }
+                if (diff == 0)
+                    break;
+            }
+        }
+
+        if (newFrom != lineFrom || newTo != lineTo)
+            log.warn("Snippet '{}' moved from lines: {} - {} to: {} - {}", path, lineFrom, lineTo, newFrom, newTo);
+
+        return new int[] { newFrom, newTo };
+    }
+
+    /**
+     * Finds the end of a relocated snippet.
+     * @param index index of the file lines.
+     * @param to the 'to' attribute value.
+     * @param near the expected line number.
+     * @param min the min line number.
+     * @param size count of lines in the file.
+     * @return the found line number, or the expected one limited by the file size when 'to' is not defined, or {@code -1}.
+     */
+    private int end(LineIndex index, String to, int near, int min, int size) {
+        if (to == null)
+            return Math.max(min, Math.min(near, size));
+        for (int line : index.ends(to, near))
+            if (line >= min)
+                return line;
+        return -1;
+    }
+
     /**
      * Check and include a snippet's lines.
      * @param generator generator.
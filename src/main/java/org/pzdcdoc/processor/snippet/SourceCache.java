@@ -0,0 +1,196 @@
+package org.pzdcdoc.processor.snippet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Cache of snippet source files, shared between pages.
+ * A file is stored with the index of line offsets, lines are decoded only when requested.
+ * Files are read in heap and counted against the limit, memory-mapping isn't used
+ * as mapped buffers can't be released explicitly and keep the files locked on Windows.
+ * Entries are checked by modification time and size, the total size is bounded with LRU eviction.
+ *
+ * @author Shamil Vakhitov
+ */
+class SourceCache {
+    private static final Logger log = LogManager.getLogger();
+
+    /** Default max total size of entries in heap. */
+    static final long MAX_BYTES = 64 * 1024 * 1024;
+
+    private final long maxBytes;
+    /** Entries in access order. */
+    private final Map<Path, Source> sources = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    /**
+     * Constructor
+     * @param maxBytes max total size of entries in heap.
+     */
+    SourceCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Lines of a file, split the same way as {@link Files#readAllLines(Path)} does.
+     * @param path the file path.
+     * @return immutable list of lines, decoded on access.
+     * @throws IOException
+     */
+    List<String> lines(Path path) throws IOException {
+        path = path.toAbsolutePath().normalize();
+        BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        long modified = attrs.lastModifiedTime().toMillis();
+
+        synchronized (this) {
+            Source source = sources.get(path);
+            if (source != null && source.modified == modified && source.size == attrs.size())
+                return source;
+        }
+
+        Source source = load(path, modified, attrs.size());
+
+        synchronized (this) {
+            Source previous = sources.put(path, source);
+            if (previous != null)
+                bytes -= previous.weight();
+            bytes += source.weight();
+
+            // the least recently used first
+            for (Iterator<Source> it = sources.values().iterator(); bytes > maxBytes && it.hasNext();) {
+                Source evicted = it.next();
+                if (evicted == source)
+                    continue;
+                it.remove();
+                bytes -= evicted.weight();
+                log.debug("Evicted: {}", evicted.path);
+            }
+        }
+
+        return source;
+    }
+
+    /**
+     * Index of lines, built once for a cached file.
+     * @param lines the lines, returned by {@link #lines(Path)}.
+     * @return the index.
+     */
+    LineIndex index(List<String> lines) {
+        if (!(lines instanceof Source source))
+            return new LineIndex(lines);
+
+        synchronized (source) {
+            if (source.index == null) {
+                source.index = new LineIndex(source);
+                synchronized (this) {
+                    if (sources.get(source.path) == source)
+                        bytes += source.index.weight();
+                }
+            }
+            return source.index;
+        }
+    }
+
+    private Source load(Path path, long modified, long size) throws IOException {
+        log.debug("Loading: {}", path);
+
+        ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(path));
+
+        return new Source(path, modified, size, content, offsets(content));
+    }
+
+    /**
+     * Builds index of line starts, line terminators are: '\n', '\r' and '\r\n'.
+     * @param content the file content.
+     * @return the starts of lines, with the end of content as the last element.
+     */
+    static int[] offsets(ByteBuffer content) {
+        int size = content.limit();
+        int[] result = new int[Math.max(16, size / 32)];
+        int count = 0;
+
+        int start = 0;
+        for (int i = 0; i < size; i++) {
+            byte b = content.get(i);
+            if (b != '\n' && b != '\r')
+                continue;
+            if (b == '\r' && i + 1 < size && content.get(i + 1) == '\n')
+                i++;
+
+            if (count + 2 > result.length)
+                result = Arrays.copyOf(result, result.length * 2);
+            result[count++] = start;
+            start = i + 1;
+        }
+
+        // the last line without terminator
+        if (start < size)
+            result[count++] = start;
+        result[count++] = size;
+
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Cached file, the list of its lines.
+     */
+    private static class Source extends AbstractList<String> implements RandomAccess {
+        private final Path path;
+        private final long modified;
+        private final long size;
+        private final ByteBuffer content;
+        /** Starts of lines and the end of the content. */
+        private final int[] offsets;
+        /** Lazily built index. */
+        private volatile LineIndex index;
+
+        private Source(Path path, long modified, long size, ByteBuffer content, int[] offsets) {
+            this.path = path;
+            this.modified = modified;
+            this.size = size;
+            this.content = content;
+            this.offsets = offsets;
+        }
+
+        /**
+         * @return size in heap.
+         */
+        private long weight() {
+            return content.capacity() + 4L * offsets.length + (index != null ? index.weight() : 0);
+        }
+
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= size())
+                throw new IndexOutOfBoundsException(index);
+
+            int start = offsets[index];
+            int end = offsets[index + 1];
+            if (end > start && content.get(end - 1) == '\n')
+                end--;
+            if (end > start && content.get(end - 1) == '\r')
+                end--;
+
+            return StandardCharsets.UTF_8.decode(content.slice(start, end - start)).toString();
+        }
+
+        @Override
+        public int size() {
+            return offsets.length - 1;
+        }
+    }
+}
@@ -70,17 +70,31 @@ const $$ = new function() {
 		scrollContentCurrentToVisible();
 	}
 
+	/**
+	 * Search index, generated by pzsearch.js: documents and first terms of shards.
+	 */
+	let searchIndex = undefined;
+
+	/**
+	 * Loaded index shards: promises with term to document numbers maps.
+	 */
+	const searchShards = [];
+
+	/**
+	 * Promise of loaded LunrJS stemmers.
+	 */
+	let lunrLoaded = undefined;
+
 	/**
 	 * Inits search input.
+	 * @param {*} index search index.
 	 */
-	const initSearch = () => {
-		let idx = undefined;
+	const initSearch = (index) => {
+		searchIndex = index;
 
 		const $input = $('#search input');
+		$input.one('focus', loadLunr);
 		$input.on("keypress", (e) => {
-			if (!idx)
-				idx = buildIndex();
-
 			if (!enterPressed(e)) return;
 
 			const $tocLinks = $('#toc.toc2 li a');
@@ -91,26 +105,22 @@ const $$ = new function() {
 
 			const searchValue = $input.val().toLowerCase();
 			if (searchValue) {
-				let tokens = '';
-
-				searchValue.split(/\s+/).forEach(token => {
-					if (!token.match(/^[\+\-\~]/))
-						tokens += ' +';
-					tokens += token + ' ';
-				});
-
-				const searchResult = idx.search(tokens).concat(substringSearch(searchValue));
-				if (searchResult.length) {
-					$searchCount.html('&nbsp;' + searchResult.length + '&nbsp;');
-					searchResult.forEach(hit => {
-						$tocLinks.each(function () {
-							const $a = $(this);
-							const url = $a.attr('href').replace(/\.\.\//g, '');
-							if (url === hit.ref)
-								$a.addClass('search').attr('target', '_blank');
+				search(searchValue).then(searchResult => {
+					if (searchResult.length) {
+						$searchCount.html('&nbsp;' + searchResult.length + '&nbsp;');
+						searchResult.forEach(hit => {
+							$tocLinks.each(function () {
+								const $a = $(this);
+								const url = $a.attr('href').replace(/\.\.\//g, '');
+								if (url === hit.ref)
+									$a.addClass('search').attr('target', '_blank');
+							});
 						});
-					});
-				}
+					}
+				}).catch(error => {
+					console.error(error);
+					$searchCount.html('&nbsp;!&nbsp;');
+				});
 			}
 		});
 	}
@@ -125,44 +135,123 @@ const $$ = new function() {
 	}
 
 	/**
-	 * Builds full-text search index on a first usage.
-	 * @returns
+	 * Searches documents, containing all the tokens.
+	 * A token matches to a term with the same stem or to terms, starting from the token.
+	 * @param {*} value lower cased searched value.
+	 * @returns promise with array of found documents.
 	 */
-	const buildIndex = () => {
-		return lunr(function () {
-			// https://lunrjs.com/guides/language_support.html
-			this.use(lunr.multiLanguage('en', 'ru', 'de'));
-
-			this.ref('ref')
-			this.field('title')
-			this.field('content')
+	const search = (value) => {
+		// the same separator is used in Search.java
+		const tokens = value.split(/[^\p{L}\p{N}_]+/u).filter(token => token);
 
-			$$.documents.forEach(function (doc) {
-				this.add(doc)
-			}, this)
+		return loadLunr().then(() => Promise.all(tokens.map(token => {
+			const stem = stemToken(token);
+			return Promise.all(shardNums(stem, stem).concat(shardNums(token, token + '\uffff')).map(loadShard)).then(shards => {
+				const docs = new Set();
+				shards.forEach(shard => {
+					Object.keys(shard).forEach(term => {
+						if (term === stem || term.startsWith(token))
+							shard[term].forEach(doc => docs.add(doc));
+					});
+				});
+				return docs;
+			});
+		}))).then(tokenDocs => {
+			if (!tokenDocs.length)
+				return [];
+			return [...tokenDocs[0]]
+				.filter(doc => tokenDocs.every(docs => docs.has(doc)))
+				.map(doc => searchIndex.docs[doc]);
 		});
 	}
 
 	/**
-	 * Searches substring in documents.
-	 * @param {*} value searched substring.
-	 * @returns array of found documents.
+	 * Loads LunrJS stemmers on a first usage, in bundle mode the script is referenced by 'data-lunr' attribute.
+	 * @returns promise, resolved after loading.
 	 */
-	const substringSearch = (value) => {
-		const result = [];
+	const loadLunr = () => {
+		if (!lunrLoaded) {
+			const src = $('script[data-lunr]').attr('data-lunr');
+			lunrLoaded = typeof lunr !== 'undefined' || !src ? Promise.resolve() : new Promise((resolve, reject) => {
+				const script = document.createElement('script');
+				script.src = src;
+				script.onload = resolve;
+				script.onerror = reject;
+				document.head.appendChild(script);
+			});
+		}
+		return lunrLoaded;
+	}
 
-		$$.documents.forEach(doc => {
-			if (doc.content.includes(value) || doc.title.toLowerCase().includes(value))
-				result.push(doc);
-		})
+	/**
+	 * Stems a token with the stemmers chain, the same is used in Search.java
+	 * https://lunrjs.com/guides/language_support.html
+	 * @param {*} token lower cased token.
+	 * @returns the stem.
+	 */
+	const stemToken = (token) => {
+		let result = new lunr.Token(token, {});
+		[lunr.stemmer, lunr.ru.stemmer, lunr.de.stemmer].forEach(stemmer => result = stemmer(result));
+		return result.toString();
+	}
 
+	/**
+	 * Finds shards, containing terms in a range.
+	 * @param {*} from the first term.
+	 * @param {*} to the last term.
+	 * @returns array of shard numbers.
+	 */
+	const shardNums = (from, to) => {
+		const shards = searchIndex.shards;
+		const result = [];
+		for (let i = 0; i < shards.length; i++)
+			if (shards[i] <= to && (i + 1 === shards.length || from < shards[i + 1]))
+				result.push(i);
 		return result;
 	}
 
+	/**
+	 * Loads an index shard script on a first usage.
+	 * Scripts are used instead of AJAX requests for supporting opening of files from disk.
+	 * A failed loading rejects the promise, the shard is requested again by the next search.
+	 * @param {*} num the shard number.
+	 * @returns promise with the shard.
+	 */
+	const loadShard = (num) => {
+		if (!searchShards[num]) {
+			let resolveShard, rejectShard;
+			searchShards[num] = new Promise((resolve, reject) => {
+				resolveShard = resolve;
+				rejectShard = reject;
+			});
+			searchShards[num].resolve = resolveShard;
+
+			const script = document.createElement('script');
+			script.src = $('script[src$="pzsearch.js"]').attr('src').replace('pzsearch.js', 'pzsearch-' + num + '.js');
+			script.onerror = () => {
+				delete searchShards[num];
+				script.remove();
+				rejectShard(new Error('Search index shard loading error: ' + script.src));
+			};
+			document.head.appendChild(script);
+		}
+		return searchShards[num];
+	}
+
+	/**
+	 * Adds a loaded index shard, called from the shard script.
+	 * @param {*} num the shard number.
+	 * @param {*} shard term to document numbers map.
+	 */
+	const addSearchShard = (num, shard) => {
+		searchShards[num].resolve(shard);
+	}
+
 	// public functions
 	this.markFragments = markFragments;
 	this.scrollCurrentToVisible = scrollCurrentToVisible;
 	this.initSearch = initSearch;
+	this.addSearchShard = addSearchShard;
 }
 
 $(function () {
@@ -0,0 +1,77 @@
+package org.pzdcdoc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for the scripts and styles bundles.
+ *
+ * @author Shamil Vakhitov
+ */
+public class BundleTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testMinifyScript() {
+        Assert.assertEquals("function f() {\nvar a = 1; // kept comment\nreturn a;\n}\n",
+            Bundle.minifyScript("// comment\nfunction f() {\n\n    var a = 1; // kept comment\r\n    return a;  \n}\n"));
+
+        // template literal
+        Assert.assertEquals("var t = `line\n    indented  \n\n// not a comment\n`;\nf();\n",
+            Bundle.minifyScript("    var t = `line\n    indented  \n\n// not a comment\n`;\n    f();\n"));
+        // string with line continuation
+        Assert.assertEquals("var s = 'a\\\n    b';\nf();\n",
+            Bundle.minifyScript("    var s = 'a\\\n    b';\n    f();\n"));
+        // escaped backslash at the end of string
+        Assert.assertEquals("var s = 'a\\\\';\nf();\n",
+            Bundle.minifyScript("    var s = 'a\\\\';\n    f();\n"));
+        // quotes in regular expressions and comments do not start strings
+        Assert.assertEquals("var r = /['`]/g, d = a / b;\n/* it's */\nf(); // it's\ng();\n",
+            Bundle.minifyScript("    var r = /['`]/g, d = a / b;\n    /* it's */\n    f(); // it's\n    g();\n"));
+        // slashes after keywords start regular expressions, after other words and brackets they are divisions
+        Assert.assertEquals("return /`/.test(s);\nf();\n",
+            Bundle.minifyScript("    return /`/.test(s);\n    f();\n"));
+        Assert.assertEquals("var t = typeof /`/;\nf();\n",
+            Bundle.minifyScript("    var t = typeof /`/;\n    f();\n"));
+        Assert.assertEquals("var d = total / count + a.return / (b) / c, t = `/`;\nf();\n",
+            Bundle.minifyScript("    var d = total / count + a.return / (b) / c, t = `/`;\n    f();\n"));
+        // multi-line block comment
+        Assert.assertEquals("/*\n* `\n*/\nf();\n",
+            Bundle.minifyScript("/*\n * `\n */\n    f();\n"));
+    }
+
+    @Test
+    public void testMinifyStyle() {
+        Assert.assertEquals("a { color: red; } b { margin: 0; } \n",
+            Bundle.minifyStyle("/* comment */\na {\n    color: red;\n}\n\n/*\n * comment\n */\nb { margin: 0; }\n"));
+
+        // strings with comment starts and line continuation
+        Assert.assertEquals("a::before { content: \"/* \\\n    x\"; } b { background: url(//host/x.png); } \n",
+            Bundle.minifyStyle("a::before {\n    content: \"/* \\\n    x\";\n}\nb { background: url(//host/x.png); }\n"));
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        Path previous = Files.writeString(dir.resolve("pzdcdoc-0123456789ab.js"), "previous");
+        Path style = Files.writeString(dir.resolve("pzdcdoc-0123456789ab.css"), "style");
+        Path other = Files.writeString(dir.resolve("pzdcdoc-extra.js"), "other");
+
+        var bundle = new Bundle("pzdcdoc", ".js", "scripts", "pzdcdoc.js");
+        bundle.write(dir);
+        Assert.assertTrue(Files.exists(dir.resolve(bundle.getName())));
+        Assert.assertFalse(Files.exists(previous));
+        Assert.assertTrue(Files.exists(style));
+        Assert.assertTrue(Files.exists(other));
+
+        // not changed bundle is kept
+        bundle.write(dir);
+        Assert.assertTrue(Files.exists(dir.resolve(bundle.getName())));
+    }
+}
@@ -0,0 +1,105 @@
+package org.pzdcdoc;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for the build daemon and its client.
+ *
+ * @author Shamil Vakhitov
+ */
+public class DaemonTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testJob() throws Exception {
+        Path socket = folder.getRoot().toPath().resolve("run/daemon.sock");
+        CompletableFuture<Void> daemon = start(socket);
+
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Assert.assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(socket.getParent())));
+            Assert.assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(socket)));
+        }
+
+        try (var channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socket));
+            var out = new DataOutputStream(Channels.newOutputStream(channel));
+            out.writeUTF(folder.getRoot().getAbsolutePath());
+            out.writeInt(1);
+            out.writeUTF("--unknown");
+            out.flush();
+
+            var in = new DataInputStream(Channels.newInputStream(channel));
+            int length;
+            while ((length = in.readInt()) != Daemon.END)
+                in.readFully(new byte[length]);
+            Assert.assertEquals(1, in.readInt());
+        }
+
+        // the second daemon on the same socket is not started, the first one keeps running
+        try {
+            new Daemon(socket, Duration.ofSeconds(1), new LinkedBlockingQueue<>()).run();
+            Assert.fail("Second daemon is started");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Another daemon"));
+        }
+        Assert.assertTrue(Daemon.alive(socket));
+
+        daemon.get(10, TimeUnit.SECONDS);
+        Assert.assertFalse(Files.exists(socket));
+        Assert.assertFalse(Daemon.alive(socket));
+    }
+
+    @Test
+    public void testAbsolute() {
+        Path cwd = Path.of("/work");
+        Assert.assertArrayEquals(new String[] {
+                "--in", Path.of("/work/src/doc").toString(),
+                "-o", Path.of("/out").toString(),
+                "-a", "pzdc-javadoc-index=" + Path.of("/work/target/javadoc"),
+                "-a", "pzdc-javadoc-index=https://docs.oracle.com/javase/8/docs/api/",
+                "-a", "pzdc-drawio-cache=../drawio-cache",
+                "--threads", "2" },
+            Client.absolute(cwd, new String[] {
+                "--in", "src/doc",
+                "-o", "/out",
+                "-a", "pzdc-javadoc-index=target/javadoc",
+                "-a", "pzdc-javadoc-index=https://docs.oracle.com/javase/8/docs/api/",
+                "-a", "pzdc-drawio-cache=../drawio-cache",
+                "--threads", "2" }));
+    }
+
+    private CompletableFuture<Void> start(Path socket) throws Exception {
+        CompletableFuture<Void> result = CompletableFuture.runAsync(() -> {
+            try {
+                new Daemon(socket, Duration.ofSeconds(2), new LinkedBlockingQueue<>()).run();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        for (int i = 0; i < 100 && !Daemon.alive(socket); i++)
+            Thread.sleep(50);
+        Assert.assertTrue(Daemon.alive(socket));
+        return result;
+    }
+}
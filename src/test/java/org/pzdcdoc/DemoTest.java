@@ -2,6 +2,7 @@ package org.pzdcdoc;
 
 import java.io.File;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.Set;
 
 import org.apache.commons.io.FileUtils;
@@ -33,20 +34,26 @@ public class DemoTest {
         Assert.assertEquals(
             "Resource files set",
             Set.of(
-                "asciidoctor.css", "coderay-asciidoctor.css", "diagram.drawio", "diagram.svg", "eclipse_plugin.png",
-                "file_properties.png", "font.css",
-                "image.png", "jquery-3.3.1.js",
+                "asciidoctor.css", "coderay-asciidoctor.css", resource("_res/diagram.drawio"), "diagram.svg", resource("_res/eclipse_plugin.png"),
+                resource("_res/file_properties.png"), "font.css",
+                // the same content in 'module/_res/image.png'
+                resource("_res/image.png"), "jquery-3.3.1.js",
                 "lunr-2.3.6.js", "lunr.de.js", "lunr.multi.js", "lunr.ru.js", "lunr.stemmer.support.js",
-                "pzdcdoc.css", "pzdcdoc.js", "pzsearch.js", "Snippet.java", "vscode_drawio.png", "vscode_plugin.png"
+                "pzdcdoc.css", "pzdcdoc.js", "pzsearch.js", "pzsearch-0.js", resource("../main/java/org/pzdcdoc/processor/snippet/Snippet.java"),
+                resource("_res/vscode_drawio.png"), resource("_res/vscode_plugin.png")
             ),
             Set.of(dir.list()));
     }
 
+    private String resource(String path) {
+        return Resources.name(Path.of(SOURCE_DIR, path));
+    }
+
     @Test
     public void checkFileDemo() throws Exception {
         var file = new File(TARGET_DIR, "demo.html");
         Assert.assertTrue("File exists", file.exists());
-        Assert.assertEquals("File size", 24616, file.length());
+        Assert.assertEquals("File size", 21095, file.length());
 
         var doc = Jsoup.parse(file, StandardCharsets.UTF_8.name());
         checkFileDemoHeader(doc);
@@ -73,6 +80,13 @@ public class DemoTest {
     }
 
     private void checkFileDemoContent(Document doc) {
+        // referenced files are named by content hashes, links keep the original names for downloading
+        var download = doc.selectFirst("a[download=Snippet.java]");
+        Assert.assertNotNull("Download link", download);
+        Assert.assertEquals("_res/" + resource("../main/java/org/pzdcdoc/processor/snippet/Snippet.java"), download.attr("href"));
+        Assert.assertEquals("Images", 2, doc.select("img[src=_res/" + resource("_res/image.png") + "]").size());
+        Assert.assertTrue("No download attribute on images", doc.select("img[download]").isEmpty());
+
         // TODO: Links count, snippets.
     }
 }
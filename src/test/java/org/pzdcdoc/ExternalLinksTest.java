@@ -0,0 +1,128 @@
+package org.pzdcdoc;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Unit test for external links checking, using a local stub HTTP server.
+ *
+ * @author Shamil Vakhitov
+ */
+public class ExternalLinksTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path dir;
+    private HttpServer server;
+    private String url;
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @Before
+    public void init() throws Exception {
+        dir = folder.getRoot().toPath();
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            String path = exchange.getRequestURI().getPath();
+            int status = switch (path) {
+                case "/ok" -> 200;
+                // only GET is supported
+                case "/get" -> "HEAD".equals(exchange.getRequestMethod()) ? 405 : 200;
+                case "/unavailable" -> 503;
+                default -> 404;
+            };
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.start();
+
+        url = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void clean() throws Exception {
+        server.stop(0);
+    }
+
+    @Test
+    public void testCheck() throws Exception {
+        File cache = dir.resolve(ExternalLinks.FILE).toFile();
+
+        var links = new ExternalLinks(cache, Duration.ofDays(1), 1);
+        links.add(dir.resolve("index.html"), List.of(url + "/ok", url + "/get", url + "/missing"));
+        links.add(dir.resolve("page.html"), List.of(url + "/ok", url + "/missing"));
+        Assert.assertEquals(2, links.check());
+        // HEAD and fallback GET for two URLs
+        Assert.assertEquals(5, requests.get());
+        Assert.assertTrue(cache.exists());
+
+        // the results are taken from the cache
+        links = new ExternalLinks(cache, Duration.ofDays(1), 1);
+        links.add(dir.resolve("index.html"), List.of(url + "/ok", url + "/missing"));
+        Assert.assertEquals(1, links.check());
+        Assert.assertEquals(5, requests.get());
+
+        // the cache is expired
+        links = new ExternalLinks(cache, Duration.ZERO, 1);
+        links.add(dir.resolve("index.html"), List.of(url + "/ok"));
+        Assert.assertEquals(0, links.check());
+        Assert.assertEquals(6, requests.get());
+    }
+
+    @Test
+    public void testCacheMerge() throws Exception {
+        File cache = dir.resolve(ExternalLinks.FILE).toFile();
+
+        var links = new ExternalLinks(cache, Duration.ofDays(1), 1);
+        links.add(dir.resolve("index.html"), List.of(url + "/ok", url + "/missing"));
+        links.add(dir.resolve("page.html"), List.of(url + "/get"));
+        Assert.assertEquals(1, links.check());
+        Assert.assertEquals(5, requests.get());
+
+        // only one page is converted, the results of others are kept
+        links = new ExternalLinks(cache, Duration.ofDays(1), 1);
+        links.add(dir.resolve("page.html"), List.of(url + "/get"));
+        Assert.assertEquals(0, links.check());
+
+        links = new ExternalLinks(cache, Duration.ofDays(1), 1);
+        links.add(dir.resolve("index.html"), List.of(url + "/ok", url + "/missing"));
+        Assert.assertEquals(1, links.check());
+        Assert.assertEquals(5, requests.get());
+    }
+
+    @Test
+    public void testTemporaryFailure() throws Exception {
+        File cache = dir.resolve(ExternalLinks.FILE).toFile();
+
+        // the port of the stopped server refuses connections
+        var closed = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        String closedUrl = "http://127.0.0.1:" + closed.getAddress().getPort() + "/ok";
+        closed.stop(0);
+
+        for (int i = 1; i <= 2; i++) {
+            var links = new ExternalLinks(cache, Duration.ofDays(1), 1);
+            links.add(dir.resolve("index.html"), List.of(url + "/unavailable", closedUrl));
+            Assert.assertEquals(2, links.check());
+            // HEAD and fallback GET in each build
+            Assert.assertEquals(2 * i, requests.get());
+        }
+
+        Assert.assertFalse(Files.readString(cache.toPath()).contains("unavailable"));
+        Assert.assertFalse(Files.readString(cache.toPath()).contains(closedUrl));
+    }
+}
@@ -0,0 +1,102 @@
+package org.pzdcdoc;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for the pre-compressed files.
+ *
+ * @author Shamil Vakhitov
+ */
+public class GzipTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path dir;
+
+    @Before
+    public void init() throws Exception {
+        dir = folder.getRoot().toPath();
+    }
+
+    @Test
+    public void testGzip() throws Exception {
+        byte[] data = "<p>Compressed text</p>\n".repeat(1000).getBytes();
+        byte[] gz = Gzip.gzip(data);
+        Assert.assertTrue(gz.length < data.length / 10);
+        Assert.assertArrayEquals(data, gunzip(gz));
+
+        Assert.assertArrayEquals(new byte[0], gunzip(Gzip.gzip(new byte[0])));
+    }
+
+    @Test
+    public void testCompressDir() throws Exception {
+        Path html = Files.writeString(dir.resolve("index.html"), "<p>Page</p>\n".repeat(1000));
+        Path css = Files.writeString(Files.createDirectories(dir.resolve("_res")).resolve("style.css"), "p { margin: 0; }\n".repeat(1000));
+        Path png = Files.writeString(dir.resolve("_res/image.png"), "png".repeat(1000));
+        // random content is not compressible
+        byte[] random = new byte[10000];
+        new Random(1).nextBytes(random);
+        Path js = Files.write(dir.resolve("_res/random.js"), random);
+
+        Assert.assertEquals(0, new Gzip(new Report()).compressDir(dir));
+
+        Assert.assertArrayEquals(Files.readAllBytes(html), gunzip(Files.readAllBytes(gz(html))));
+        Assert.assertArrayEquals(Files.readAllBytes(css), gunzip(Files.readAllBytes(gz(css))));
+        Assert.assertFalse(Files.exists(gz(png)));
+        Assert.assertFalse(Files.exists(gz(js)));
+        Assert.assertFalse(Files.exists(dir.resolve("index.html.gz.tmp")));
+
+        // not changed file is not compressed again
+        Files.write(gz(css), new byte[0]);
+        Assert.assertEquals(0, new Gzip(new Report()).compressDir(dir));
+        Assert.assertEquals(0, Files.size(gz(css)));
+
+        // changed file is compressed again
+        Files.writeString(html, "<p>Changed page</p>\n".repeat(1000));
+        Files.setLastModifiedTime(html, FileTime.fromMillis(Files.getLastModifiedTime(gz(html)).toMillis() + 1000));
+        Assert.assertEquals(0, new Gzip(new Report()).compressDir(dir));
+        Assert.assertArrayEquals(Files.readAllBytes(html), gunzip(Files.readAllBytes(gz(html))));
+    }
+
+    @Test
+    public void testDeleteRemoved() throws Exception {
+        Path html = Files.writeString(dir.resolve("index.html"), "<p>Page</p>\n".repeat(1000));
+        Path removed = Files.writeString(dir.resolve("removed.html"), "<p>Removed</p>\n".repeat(1000));
+        Path shard = Files.writeString(Files.createDirectories(dir.resolve("_res")).resolve("pzsearch-1.js"), "var a = 1;\n".repeat(1000));
+        // not generated archive
+        Path archive = Files.writeString(dir.resolve("_res/sources.tar.gz"), "archive");
+
+        Assert.assertEquals(0, new Gzip(new Report()).compressDir(dir));
+        Assert.assertTrue(Files.exists(gz(removed)));
+        Assert.assertTrue(Files.exists(gz(shard)));
+
+        Files.delete(removed);
+        Files.delete(shard);
+        Assert.assertEquals(0, new Gzip(new Report()).compressDir(dir));
+        Assert.assertFalse(Files.exists(gz(removed)));
+        Assert.assertFalse(Files.exists(gz(shard)));
+        Assert.assertTrue(Files.exists(gz(html)));
+        Assert.assertTrue(Files.exists(archive));
+    }
+
+    private Path gz(Path file) {
+        return file.resolveSibling(file.getFileName() + Gzip.EXT);
+    }
+
+    private byte[] gunzip(byte[] gz) throws Exception {
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(gz))) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.pzdcdoc;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for the streaming HTML post-processing.
+ *
+ * @author Shamil Vakhitov
+ */
+public class HtmlStreamTest {
+    /** Page structure, generated by Asciidoctor. */
+    private static final String PAGE = """
+        <!DOCTYPE html>
+        <html lang="en">
+        <head>
+        <meta charset="UTF-8">
+        <title>Demo</title>
+        </head>
+        <body class="article toc2">
+        <div id="header">
+        <h1>Demo</h1>
+        </div>
+        <div id="content">
+        <div id="preamble">
+        <div class="sectionbody">
+        <div class="paragraph">
+        <p>Text with <a href="_res/image.png">link</a> &amp; entity.</p>
+        </div>
+        </div>
+        </div>
+        <div class="sect1">
+        <h2 id="_about">About</h2>
+        <div class="sectionbody">
+        <div class="listingblock">
+        <div class="content">
+        <pre class="highlight"><code>  indented
+            code</code></pre>
+        </div>
+        </div>
+        <div class="imageblock">
+        <div class="content">
+        <img src="_res/image.png" alt="image" width="600px">
+        </div>
+        </div>
+        </div>
+        </div>
+        </div>
+        <div id="footer">
+        <div id="footer-text">
+        Last updated
+        </div>
+        </div>
+        </body>
+        </html>
+        """;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWrite() throws Exception {
+        var out = new StringWriter();
+        HtmlStream.write(new StringReader(PAGE), out, new HtmlStream.Handler() {
+            @Override
+            public void start(Element container) {
+                if (container.id().equals("content"))
+                    container.addClass("processed");
+            }
+
+            @Override
+            public String chunk(Element chunk) {
+                if (chunk.nameIs("head"))
+                    chunk.append("<script src='_res/pzdcdoc.js'></script>");
+                chunk.select("img").attr("loading", "lazy");
+                return chunk.outerHtml();
+            }
+        });
+
+        Document doc = Jsoup.parse(PAGE);
+        HtmlStream.outputSettings(doc);
+        doc.head().append("<script src='_res/pzdcdoc.js'></script>");
+        doc.getElementById("content").addClass("processed");
+        doc.select("img").attr("loading", "lazy");
+
+        Assert.assertEquals(doc.outerHtml(), out.toString());
+    }
+
+    @Test
+    public void testDemo() throws Exception {
+        Path memory = folder.getRoot().toPath().resolve("memory");
+        Path stream = folder.getRoot().toPath().resolve("stream");
+
+        // errors, e.g. of not available diagrams converter, are the same in both the modes
+        Assert.assertEquals(Generator.run("--in", "src/doc", "--out", memory.toString()),
+            Generator.run("--in", "src/doc", "--out", stream.toString(), "--stream"));
+
+        Assert.assertEquals(Files.readString(memory.resolve("demo.html")), Files.readString(stream.resolve("demo.html")));
+    }
+}
@@ -0,0 +1,102 @@
+package org.pzdcdoc;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for images optimization.
+ *
+ * @author Shamil Vakhitov
+ */
+public class ImagesTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path dir;
+    private Path image;
+
+    @Before
+    public void init() throws Exception {
+        dir = folder.getRoot().toPath();
+
+        var data = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 200; x++)
+            for (int y = 0; y < 100; y++)
+                data.setRGB(x, y, (x * 7 + y * 13) % 256 << 8);
+        image = dir.resolve("screenshot.png");
+        ImageIO.write(data, "png", image.toFile());
+    }
+
+    @Test
+    public void testOptimize() throws Exception {
+        var images = new Images(dir.resolve("_res"), dir.resolve(Images.FILE).toFile(), new Report());
+        String name = Resources.name(image);
+        Assert.assertTrue(images.isOptimized(name));
+
+        images.optimize(image, name).join();
+        Path target = dir.resolve("_res").resolve(name);
+        Assert.assertTrue(Files.size(target) <= Files.size(image));
+
+        // lossless
+        BufferedImage original = ImageIO.read(image.toFile());
+        BufferedImage optimized = ImageIO.read(target.toFile());
+        for (int x = 0; x < 200; x++)
+            for (int y = 0; y < 100; y++)
+                Assert.assertEquals(original.getRGB(x, y), optimized.getRGB(x, y));
+
+        Assert.assertEquals(0, images.await());
+        Assert.assertTrue(Files.exists(dir.resolve(Images.FILE)));
+
+        // not written again with the cache
+        long modified = Files.getLastModifiedTime(target).toMillis() - 10000;
+        Files.setLastModifiedTime(target, FileTime.fromMillis(modified));
+        images = new Images(dir.resolve("_res"), dir.resolve(Images.FILE).toFile(), new Report());
+        images.optimize(image, name).join();
+        Assert.assertEquals(modified, Files.getLastModifiedTime(target).toMillis());
+    }
+
+    @Test
+    public void testProcess() throws Exception {
+        var images = new Images(dir.resolve("_res"), dir.resolve(Images.FILE).toFile(), new Report());
+        String name = Resources.name(image);
+
+        Element img = Jsoup.parse("<img src='screenshot.png'>").selectFirst("img");
+        Assert.assertEquals(List.of(), images.process(img, image, name, "_res/"));
+        Assert.assertEquals("200", img.attr("width"));
+        Assert.assertEquals("100", img.attr("height"));
+        Assert.assertEquals("lazy", img.attr("loading"));
+
+        img = Jsoup.parse("<img src='screenshot.png' width='80'>").selectFirst("img");
+        String variant = Images.variant(name, 80);
+        Assert.assertEquals(List.of(variant, Images.variant(name, 160)), images.process(img, image, name, "_res/"));
+        Assert.assertEquals("40", img.attr("height"));
+        Assert.assertEquals("_res/" + variant + " 1x, _res/" + Images.variant(name, 160) + " 2x", img.attr("srcset"));
+
+        img = Jsoup.parse("<img src='screenshot.png' width='150'>").selectFirst("img");
+        Assert.assertEquals(List.of(Images.variant(name, 150)), images.process(img, image, name, "_res/"));
+        Assert.assertEquals("_res/" + Images.variant(name, 150) + " 1x, _res/" + name + " 2x", img.attr("srcset"));
+
+        // sizes in percents are kept
+        img = Jsoup.parse("<img src='screenshot.png' width='50%'>").selectFirst("img");
+        Assert.assertEquals(List.of(), images.process(img, image, name, "_res/"));
+        Assert.assertFalse(img.hasAttr("height"));
+
+        Assert.assertEquals(0, images.await());
+        BufferedImage scaled = ImageIO.read(dir.resolve("_res").resolve(variant).toFile());
+        Assert.assertEquals(80, scaled.getWidth());
+        Assert.assertEquals(40, scaled.getHeight());
+    }
+}
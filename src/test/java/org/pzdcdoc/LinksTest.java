@@ -0,0 +1,90 @@
+package org.pzdcdoc;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.jsoup.Jsoup;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for references checking.
+ *
+ * @author Shamil Vakhitov
+ */
+public class LinksTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path dir;
+
+    @Before
+    public void init() throws Exception {
+        dir = folder.getRoot().toPath();
+    }
+
+    @Test
+    public void testCheckDir() throws Exception {
+        write("index.html", "<a href='page.html'>OK</a><a href='page.html#chapter'>OK</a><a href='page.html#missing'>Fragment</a>");
+        write("sub/page.html", "<a href='../index.html'>OK</a><a href='../missing.html'>Missing</a><img src='image.png'/>");
+        write("page.html", "<h2 id=\"chapter\">Chapter</h2><a href='#chapter'>OK</a><a href='#_local'>Skipped</a><a href='https://pzdcdoc.org'>Skipped</a>");
+
+        Assert.assertEquals(3, new Links().checkDir(dir.toFile()));
+    }
+
+    @Test
+    public void testAddPage() throws Exception {
+        write("index.html", "<a href='missing.html'>Missing</a>");
+        write("page.html", "<a href='index.html#chapter'>Fragment</a>");
+
+        var links = new Links();
+        // the in memory page replaces the written one
+        links.addPage(dir.resolve("index.html"), Jsoup.parse("<h2 id='chapter'>Chapter</h2><script src='script.js'></script><link rel='stylesheet' href='style.css'>"));
+
+        Assert.assertEquals(2, links.checkDir(dir.toFile()));
+    }
+
+    @Test
+    public void testCheckPages() throws Exception {
+        write("index.html", "<a href='missing.html'>Not checked</a>");
+        write("page.html", "<h2 id=\"chapter\">Chapter</h2>");
+
+        var links = new Links();
+        links.addPage(dir.resolve("sub/page.html"), Jsoup.parse("<a href='../page.html#chapter'>OK</a><a href='../page.html#missing'>Fragment</a>"));
+
+        Assert.assertEquals(1, links.checkPages());
+    }
+
+    @Test
+    public void testGetLinks() {
+        var doc = Jsoup.parse("<a href='page.html'></a><img src='image.png'><link rel='stylesheet' href='style.css'>"
+            + "<script src='script.js'></script><video src='video.mp4'></video>");
+
+        // only the copied resources
+        Assert.assertEquals(2, ((List<Link>) Links.getLinks(doc)).size());
+        Assert.assertEquals(5, ((List<Link>) Links.getCheckedLinks(doc)).size());
+    }
+
+    @Test
+    public void testIds() throws Exception {
+        // single quoted ID, in the written file the same as in memory
+        write("page.html", "<h2 id='chapter'>Chapter</h2><a href='#chapter'>OK</a>");
+        write("index.html", "<a href='page.html#chapter'>OK</a>");
+
+        Assert.assertEquals(0, new Links().checkDir(dir.toFile()));
+        Assert.assertEquals(Set.of("chapter"), Links.getIds(Jsoup.parse("<h2 id='chapter'>Chapter</h2>")));
+    }
+
+    private void write(String path, String content) throws Exception {
+        File file = dir.resolve(path).toFile();
+        FileUtils.writeStringToFile(file, "<html><body>" + content + "</body></html>", StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,110 @@
+package org.pzdcdoc;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for the build manifest.
+ *
+ * @author Shamil Vakhitov
+ */
+public class ManifestTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File sourceDir;
+    private File targetDir;
+
+    @Before
+    public void init() throws Exception {
+        sourceDir = folder.newFolder("src");
+        targetDir = folder.newFolder("out");
+    }
+
+    @Test
+    public void testUpToDate() throws Exception {
+        Map<String, Object> attributes = Map.of("a", "1");
+
+        Manifest manifest = Manifest.load(sourceDir, targetDir);
+        Assert.assertNull(manifest.upToDate("index.html", attributes, "toc"));
+        put(manifest, "index", attributes);
+        manifest.write();
+
+        manifest = Manifest.load(sourceDir, targetDir);
+        Assert.assertNotNull(manifest.upToDate("index.html", attributes, "toc"));
+        Assert.assertNull("Changed attributes", manifest.upToDate("index.html", Map.of("a", "2"), "toc"));
+        Assert.assertNull("Changed ToC", manifest.upToDate("index.html", attributes, "toc2"));
+
+        Assert.assertTrue(Manifest.load(sourceDir, targetDir).convertAll());
+        manifest = Manifest.load(sourceDir, targetDir);
+        manifest.convertAll();
+        Assert.assertNull("Convert all", manifest.upToDate("index.html", attributes, "toc"));
+
+        manifest = Manifest.load(sourceDir, targetDir);
+        Files.writeString(sourceDir.toPath().resolve("index.adoc"), "= Changed");
+        Assert.assertNull("Changed source", manifest.upToDate("index.html", attributes, "toc"));
+    }
+
+    @Test
+    public void testGeneratorVersion() throws Exception {
+        Manifest manifest = Manifest.load(sourceDir, targetDir);
+        put(manifest, "index", Map.of());
+        manifest.write();
+
+        Path file = targetDir.toPath().resolve(Manifest.FILE);
+        Files.writeString(file, Files.readString(file).replace("\"" + Manifest.GENERATOR + "\"", "\"0.1\""));
+
+        manifest = Manifest.load(sourceDir, targetDir);
+        Assert.assertNull(manifest.upToDate("index.html", Map.of(), "toc"));
+    }
+
+    @Test
+    public void testDeleteRemoved() throws Exception {
+        Manifest manifest = Manifest.load(sourceDir, targetDir);
+        Manifest.Page index = put(manifest, "index", Map.of());
+        Manifest.Page removed = put(manifest, "removed", Map.of());
+        // resource, shared by both the pages
+        Path shared = targetDir.toPath().resolve("_res/shared.png");
+        Files.createDirectories(shared.getParent());
+        Files.writeString(shared, "png");
+        manifest.output(index, shared);
+        manifest.output(removed, shared);
+        manifest.write();
+
+        Files.delete(sourceDir.toPath().resolve("removed.adoc"));
+
+        manifest = Manifest.load(sourceDir, targetDir);
+        Assert.assertNotNull(manifest.upToDate("index.html", Map.of(), "toc"));
+        Assert.assertEquals(1, manifest.deleteRemoved());
+        Assert.assertFalse(Files.exists(targetDir.toPath().resolve("removed.html")));
+        Assert.assertTrue(Files.exists(targetDir.toPath().resolve("index.html")));
+        Assert.assertTrue(Files.exists(shared));
+
+        // kept pages are not deleted
+        manifest = Manifest.load(sourceDir, targetDir);
+        Assert.assertTrue(manifest.keep("index.html"));
+        Assert.assertEquals(0, manifest.deleteRemoved());
+        Assert.assertTrue(Files.exists(targetDir.toPath().resolve("index.html")));
+    }
+
+    private Manifest.Page put(Manifest manifest, String name, Map<String, Object> attributes) throws Exception {
+        Path source = sourceDir.toPath().resolve(name + ".adoc");
+        Files.writeString(source, "= " + name);
+        Path target = targetDir.toPath().resolve(name + ".html");
+        Files.writeString(target, "<html/>");
+
+        Manifest.Page page = new Manifest.Page();
+        manifest.input(page, source);
+        manifest.output(page, target);
+        manifest.put(name + ".html", page, attributes, "toc");
+        return page;
+    }
+}
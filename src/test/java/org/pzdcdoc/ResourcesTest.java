@@ -0,0 +1,66 @@
+package org.pzdcdoc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for the content addressed resources storage.
+ *
+ * @author Shamil Vakhitov
+ */
+public class ResourcesTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path sourceDir;
+    private Path dir;
+
+    @Before
+    public void init() throws Exception {
+        sourceDir = folder.newFolder("src").toPath();
+        dir = folder.getRoot().toPath().resolve("out/_res");
+    }
+
+    @Test
+    public void testAdd() throws Exception {
+        var resources = new Resources(dir, new Report(), null);
+        String name = resources.add(write("_res/image.png", "png"));
+        // the same content in another directory
+        Assert.assertEquals(name, resources.add(write("module/_res/image.png", "png")));
+        Assert.assertNotEquals(name, resources.add(write("module/_res/other.png", "other")));
+        Assert.assertEquals(0, resources.await());
+
+        Assert.assertEquals(2, dir.toFile().list().length);
+        Assert.assertEquals("png", Files.readString(dir.resolve(name)));
+    }
+
+    @Test
+    public void testDeleteUnused() throws Exception {
+        var resources = new Resources(dir, new Report(), null);
+        String used = resources.add(write("_res/image.png", "png"));
+        String unused = resources.add(write("_res/old.png", "old"));
+        Assert.assertEquals(0, resources.await());
+        // not content addressed files
+        Files.writeString(dir.resolve("pzdcdoc.js"), "");
+        Files.writeString(dir.resolve("diagram.svg"), "");
+
+        Assert.assertEquals(1, resources.deleteUnused(Set.of(dir.resolve(used).toAbsolutePath().normalize())));
+        Assert.assertTrue(Files.exists(dir.resolve(used)));
+        Assert.assertFalse(Files.exists(dir.resolve(unused)));
+        Assert.assertTrue(Files.exists(dir.resolve("pzdcdoc.js")));
+        Assert.assertTrue(Files.exists(dir.resolve("diagram.svg")));
+    }
+
+    private Path write(String path, String content) throws Exception {
+        Path file = sourceDir.resolve(path);
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, content);
+    }
+}
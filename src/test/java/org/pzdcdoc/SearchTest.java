@@ -0,0 +1,130 @@
+package org.pzdcdoc;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Unit test for the search index.
+ *
+ * @author Shamil Vakhitov
+ */
+public class SearchTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File targetDir;
+    private File rootRes;
+
+    @Before
+    public void init() throws Exception {
+        targetDir = folder.newFolder("out");
+        rootRes = folder.newFolder("out", "_res");
+    }
+
+    @Test
+    public void testShards() throws Exception {
+        var search = new Search(targetDir);
+        // enough of terms for a few shards
+        search.addArticle(new Search.Article("b.html", "Second", text(0, 20000)));
+        search.addArticle(new Search.Article("a.html", "First", text(10000, 30000)));
+        search.writeScript(rootRes);
+
+        JsonNode index = script(Search.SCRIPT, "$(function () {$$.initSearch(", ");});");
+        Assert.assertEquals("a.html", index.get("docs").get(0).get("ref").asText());
+        Assert.assertEquals("b.html", index.get("docs").get(1).get("ref").asText());
+
+        List<String> shards = new ArrayList<>();
+        index.get("shards").forEach(term -> shards.add(term.asText()));
+        Assert.assertTrue("Shards count: " + shards.size(), shards.size() > 1);
+        Assert.assertEquals(shards.size(), rootRes.list((dir, name) -> name.startsWith("pzsearch-")).length);
+
+        // each term is placed in the shard, found by the first terms, like it is done in pzdcdoc.js
+        int terms = 0;
+        for (int num = 0; num < shards.size(); num++) {
+            JsonNode shard = script("pzsearch-" + num + ".js", "$$.addSearchShard(" + num + ", ", ");");
+            for (var it = shard.fieldNames(); it.hasNext();) {
+                String term = it.next();
+                Assert.assertTrue(term, shards.get(num).compareTo(term) <= 0);
+                Assert.assertTrue(term, num + 1 == shards.size() || term.compareTo(shards.get(num + 1)) < 0);
+                terms++;
+            }
+        }
+        // terms of titles
+        Assert.assertEquals(30000 + 2, terms);
+
+        // document numbers of 'a.html' and 'b.html'
+        Assert.assertEquals("[1]", findShard(shards, "term00000").get("term00000").toString());
+        Assert.assertEquals("[0]", findShard(shards, "term29999").get("term29999").toString());
+        Assert.assertEquals("[0,1]", findShard(shards, "term15000").get("term15000").toString());
+    }
+
+    @Test
+    public void testKeep() throws Exception {
+        var search = new Search(targetDir);
+        Assert.assertFalse(search.hasPrevious());
+        search.addArticle(new Search.Article("a.html", "First", "alpha"));
+        search.addArticle(new Search.Article("b.html", "Second", "beta"));
+        search.writeScript(rootRes);
+        Assert.assertTrue(new File(targetDir, Search.FILE).exists());
+
+        // the changed article is added, the not changed one is merged from the previous build
+        search = new Search(targetDir);
+        Assert.assertTrue(search.hasPrevious());
+        search.addArticle(new Search.Article("a.html", "First", "gamma"));
+        search.keepArticle("b.html");
+        search.writeScript(rootRes);
+
+        JsonNode index = script(Search.SCRIPT, "$(function () {$$.initSearch(", ");});");
+        Assert.assertEquals(2, index.get("docs").size());
+        JsonNode shard = findShard(List.of(index.get("shards").get(0).asText()), "beta");
+        Assert.assertEquals("[1]", shard.get("beta").toString());
+        Assert.assertEquals("[0]", shard.get("gamma").toString());
+        Assert.assertNull(shard.get("alpha"));
+        Assert.assertFalse(new File(targetDir, Search.FILE + ".tmp").exists());
+
+        // kept article without the previous index is dropped
+        Files.delete(targetDir.toPath().resolve(Search.FILE));
+        search = new Search(targetDir);
+        Assert.assertFalse(search.hasPrevious());
+        search.addArticle(new Search.Article("a.html", "First", "gamma"));
+        search.keepArticle("b.html");
+        search.writeScript(rootRes);
+        index = script(Search.SCRIPT, "$(function () {$$.initSearch(", ");});");
+        Assert.assertEquals(1, index.get("docs").size());
+    }
+
+    private JsonNode findShard(List<String> shards, String term) throws Exception {
+        int num = 0;
+        while (num + 1 < shards.size() && shards.get(num + 1).compareTo(term) <= 0)
+            num++;
+        return script("pzsearch-" + num + ".js", "$$.addSearchShard(" + num + ", ", ");");
+    }
+
+    private JsonNode script(String name, String prefix, String suffix) throws Exception {
+        String script = Files.readString(rootRes.toPath().resolve(name), StandardCharsets.UTF_8);
+        Assert.assertTrue(script, script.startsWith(prefix) && script.endsWith(suffix));
+        return MAPPER.readTree(StringUtils.removeEnd(StringUtils.removeStart(script, prefix), suffix));
+    }
+
+    private String text(int from, int to) {
+        var result = new StringBuilder();
+        for (int i = from; i < to; i++)
+            result.append(String.format("term%05d ", i));
+        return result.toString();
+    }
+}
@@ -0,0 +1,65 @@
+package org.pzdcdoc;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for the global ToC rendering.
+ *
+ * @author Shamil Vakhitov
+ */
+public class ToCTest {
+    private static final String INDEX = "<div id='header'><h1>Title</h1></div>"
+        + "<ul><li><a href='demo.html'>Demo</a></li><li><a href='module/index.html'>Module</a></li><li><a href='https://pzdcdoc.org'>External</a></li></ul>";
+
+    @Test
+    public void testRender() {
+        ToC toc = new ToC(Jsoup.parse(INDEX).body());
+
+        Document page = Jsoup.parse(toc.render(Path.of("/out/module/index.html"), "../", "<ul class='sectlevel1'><li><a href='#about'>About</a></li></ul>"));
+
+        Assert.assertEquals("../index.html", page.selectFirst("#header h1 a").attr("href"));
+
+        Element demo = page.selectFirst("a[title=Demo]");
+        Assert.assertEquals("../demo.html", demo.attr("href"));
+        Assert.assertFalse(demo.hasClass("current"));
+
+        Element module = page.selectFirst("a[title=Module]");
+        Assert.assertEquals("../module/index.html", module.attr("href"));
+        Assert.assertTrue(module.hasClass("current"));
+        Assert.assertEquals("sectlevel1", module.nextElementSibling().className());
+
+        Assert.assertEquals("https://pzdcdoc.org", page.selectFirst("a:contains(External)").attr("href"));
+        Assert.assertTrue(page.select("[data-pzdc-toc]").isEmpty());
+    }
+
+    @Test
+    public void testRenderWithClass() {
+        ToC toc = new ToC(Jsoup.parse("<ul><li><a href='demo.html' class='new'>Demo</a></li><li><a href='index.html' class='root'>Index</a></li></ul>").body());
+
+        String html = toc.render(Path.of("/out/demo.html"), "", null);
+        Assert.assertTrue(html, html.contains("class=\"new current\""));
+        Assert.assertFalse(html, html.contains("class=\"current\""));
+
+        Document page = Jsoup.parse(html);
+        Element demo = page.selectFirst("a[title=Demo]");
+        Assert.assertEquals("new current", demo.className());
+
+        Element index = page.selectFirst("a[title=Index]");
+        Assert.assertEquals("root", index.className());
+        Assert.assertEquals("index.html", index.attr("href"));
+    }
+
+    @Test
+    public void testLinks() {
+        ToC toc = new ToC(Jsoup.parse(INDEX).body());
+        Assert.assertEquals(List.of("index.html", "demo.html", "module/index.html"), toc.getLinks(""));
+        Assert.assertEquals(List.of("../index.html", "../demo.html", "../module/index.html"), toc.getLinks("../"));
+    }
+}
@@ -0,0 +1,57 @@
+package org.pzdcdoc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for the source changes watcher.
+ *
+ * @author Shamil Vakhitov
+ */
+public class WatcherTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path sourceDir;
+    private Path targetDir;
+
+    @Before
+    public void init() throws Exception {
+        sourceDir = folder.newFolder("src").toPath();
+        // the target directory inside of the source one
+        targetDir = Files.createDirectories(sourceDir.resolve("out"));
+        Files.createDirectories(sourceDir.resolve(".asciidoctor"));
+    }
+
+    @Test
+    public void testIgnored() throws Exception {
+        try (var watcher = new Watcher(sourceDir, targetDir)) {
+            Assert.assertFalse(watcher.ignored(sourceDir.resolve("index.adoc")));
+            Assert.assertTrue(watcher.ignored(targetDir));
+            Assert.assertTrue(watcher.ignored(targetDir.resolve("index.html")));
+            Assert.assertTrue(watcher.ignored(sourceDir.resolve(".asciidoctor/tmp")));
+            Assert.assertFalse(watcher.ignored(folder.getRoot().toPath().resolve("snippets/Sample.java")));
+        }
+    }
+
+    @Test
+    public void testAwait() throws Exception {
+        try (var watcher = new Watcher(sourceDir, targetDir)) {
+            watcher.register(List.of(targetDir));
+
+            Files.writeString(targetDir.resolve("index.html"), "<html/>");
+            Files.writeString(sourceDir.resolve(".asciidoctor/tmp"), "");
+            Files.writeString(sourceDir.resolve("index.adoc"), "= Index");
+
+            Assert.assertEquals(Set.of(sourceDir.resolve("index.adoc")), watcher.await());
+        }
+    }
+}
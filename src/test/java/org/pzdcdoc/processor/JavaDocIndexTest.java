@@ -0,0 +1,104 @@
+package org.pzdcdoc.processor;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Unit test for JavaDoc elements index.
+ *
+ * @author Shamil Vakhitov
+ */
+public class JavaDocIndexTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path dir;
+
+    @Before
+    public void init() throws Exception {
+        dir = folder.getRoot().toPath();
+        Files.writeString(dir.resolve(JavaDocIndex.ELEMENT_LIST), "module:app\norg.app\norg.app.dao\n");
+    }
+
+    @Test
+    public void testContains() throws Exception {
+        Files.writeString(dir.resolve(JavaDocIndex.TYPE_INDEX),
+            "typeSearchIndex = [{\"l\":\"All Classes and Interfaces\",\"u\":\"allclasses-index.html\"},"
+            + "{\"m\":\"app\",\"p\":\"org.app.dao\",\"l\":\"UserDAO\"},{\"p\":\"org.app\",\"l\":\"App.Config\"}];updateSearchResults();");
+        Files.writeString(dir.resolve(JavaDocIndex.MEMBER_INDEX),
+            "memberSearchIndex = [{\"p\":\"org.app.dao\",\"c\":\"UserDAO\",\"l\":\"getUser(int)\"},"
+            + "{\"p\":\"org.app.dao\",\"c\":\"UserDAO\",\"l\":\"find(String)\",\"u\":\"find(java.lang.String)\"}];updateSearchResults();");
+
+        var index = JavaDocIndex.load(dir);
+        Assert.assertTrue(index.contains("org.app"));
+        Assert.assertTrue(index.contains("org.app.dao.UserDAO"));
+        Assert.assertTrue(index.contains("org.app.App.Config"));
+        Assert.assertTrue(index.contains("org.app.dao.UserDAO#getUser(int)"));
+        Assert.assertTrue(index.contains("org.app.dao.UserDAO#find(java.lang.String)"));
+
+        Assert.assertFalse(index.contains("org"));
+        Assert.assertFalse(index.contains("org.app.dao.UserDao"));
+        Assert.assertFalse(index.contains("org.app.dao.UserDAO#getUser(long)"));
+        Assert.assertFalse(index.contains("org.app.dao.UserDAO#find(String)"));
+        Assert.assertFalse(index.contains("app"));
+    }
+
+    @Test
+    public void testContainsPackagesOnly() throws Exception {
+        var index = JavaDocIndex.load(dir);
+        // only packages are checked
+        Assert.assertTrue(index.contains("org.app.dao.UserDAO"));
+        Assert.assertTrue(index.contains("org.app.dao.UserDAO#getUser(int)"));
+        Assert.assertFalse(index.contains("org.app.service.UserService"));
+    }
+
+    @Test
+    public void testDownload() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        var server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            byte[] body = "org.app\n".getBytes();
+            if (exchange.getRequestURI().getPath().endsWith(JavaDocIndex.ELEMENT_LIST)) {
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            } else
+                exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/api";
+            Path cacheDir = dir.resolve("cache");
+
+            Assert.assertTrue(JavaDocIndex.get(url, cacheDir).contains("org.app.App"));
+            Assert.assertEquals(4, requests.get());
+            // the download is checked once
+            Assert.assertTrue(JavaDocIndex.get(url, cacheDir).contains("org.app.App"));
+            Assert.assertEquals(4, requests.get());
+        } finally {
+            server.stop(0);
+        }
+
+        // the port of the stopped server refuses connections
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/failed";
+        try {
+            JavaDocIndex.get(url, dir.resolve("cache"));
+            Assert.fail();
+        } catch (IOException e) {
+            // the failure is reported once
+        }
+        Assert.assertNull(JavaDocIndex.get(url, dir.resolve("cache")));
+    }
+}
@@ -0,0 +1,176 @@
+package org.pzdcdoc.processor.drawio;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Unit test for DrawIO rendering with a stub converter.
+ *
+ * @author Shamil Vakhitov
+ */
+public class DrawIOTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path dir;
+    private HttpServer server;
+    private String url;
+
+    @Before
+    public void init() throws Exception {
+        dir = folder.getRoot().toPath();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void clean() throws Exception {
+        server.stop(0);
+    }
+
+    @Test
+    public void testMaxRequests() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger max = new AtomicInteger();
+        server.createContext("/limit", exchange -> {
+            max.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            respond(exchange, 200, "<svg/>");
+        });
+
+        List<CompletableFuture<Void>> renders = new ArrayList<>();
+        for (int i = 0; i < 6; i++)
+            renders.add(DrawIO.render(url + "/limit", 10, 2, "{}", dir.resolve("diagram" + i + ".svg")));
+        CompletableFuture.allOf(renders.toArray(CompletableFuture[]::new)).join();
+
+        Assert.assertEquals(2, max.get());
+        for (int i = 0; i < 6; i++)
+            Assert.assertEquals("<svg/>", Files.readString(dir.resolve("diagram" + i + ".svg")));
+    }
+
+    @Test
+    public void testSlowConverter() throws Exception {
+        CountDownLatch slow = new CountDownLatch(1);
+        server.createContext("/slow", exchange -> {
+            try {
+                slow.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, "<svg/>");
+        });
+        server.createContext("/fast", exchange -> respond(exchange, 200, "<svg/>"));
+
+        // waiting renders of the slow converter don't occupy threads, used for other converters
+        List<CompletableFuture<Void>> renders = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+            renders.add(DrawIO.render(url + "/slow", 20, 1, "{}", dir.resolve("slow" + i + ".svg")));
+        DrawIO.render(url + "/fast", 10, 1, "{}", dir.resolve("fast.svg")).get(5, TimeUnit.SECONDS);
+        Assert.assertFalse(renders.get(0).isDone());
+
+        slow.countDown();
+        CompletableFuture.allOf(renders.toArray(CompletableFuture[]::new)).join();
+    }
+
+    @Test
+    public void testRetry() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        server.createContext("/retry", exchange -> {
+            if (requests.incrementAndGet() == 1)
+                respond(exchange, 503, "Busy");
+            else
+                respond(exchange, 200, "<svg/>");
+        });
+
+        DrawIO.render(url + "/retry", 10, 2, "{}", dir.resolve("diagram.svg")).join();
+
+        Assert.assertEquals(2, requests.get());
+        Assert.assertEquals("<svg/>", Files.readString(dir.resolve("diagram.svg")));
+    }
+
+    @Test
+    public void testClientError() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        server.createContext("/error", exchange -> {
+            requests.incrementAndGet();
+            respond(exchange, 400, "Wrong");
+        });
+
+        try {
+            DrawIO.render(url + "/error", 10, 2, "{}", dir.resolve("diagram.svg")).join();
+            Assert.fail();
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getMessage().contains("400"));
+        }
+
+        Assert.assertEquals(1, requests.get());
+        Assert.assertFalse(Files.exists(dir.resolve("diagram.svg")));
+    }
+
+    @Test
+    public void testSameTarget() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        server.createContext("/same", exchange -> {
+            requests.incrementAndGet();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, "<svg/>");
+        });
+
+        // the running render is shared
+        var first = DrawIO.render(url + "/same", 10, 2, "{}", dir.resolve("diagram.svg"));
+        Assert.assertSame(first, DrawIO.render(url + "/same", 10, 2, "{}", dir.resolve("diagram.svg")));
+        first.join();
+        Assert.assertEquals(1, requests.get());
+
+        // the completed one is removed, the removal handler may be still running after the join
+        var second = first;
+        for (int i = 0; i < 100 && second == first; i++) {
+            Thread.sleep(10);
+            second = DrawIO.render(url + "/same", 10, 2, "{}", dir.resolve("diagram.svg"));
+        }
+        Assert.assertNotSame(first, second);
+        second.join();
+        Assert.assertEquals(2, requests.get());
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (var out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
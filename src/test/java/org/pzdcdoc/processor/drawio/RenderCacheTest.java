@@ -0,0 +1,114 @@
+package org.pzdcdoc.processor.drawio;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for the DrawIO render cache.
+ *
+ * @author Shamil Vakhitov
+ */
+public class RenderCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path dir;
+
+    @Before
+    public void init() throws Exception {
+        dir = folder.getRoot().toPath();
+    }
+
+    @Test
+    public void testKey() {
+        String key = RenderCache.key("<mxfile/>", "svg", SvgRenderer.ID);
+        Assert.assertEquals(key, RenderCache.key("<mxfile/>", "svg", SvgRenderer.ID));
+        Assert.assertNotEquals(key, RenderCache.key("<mxfile/>", "png", SvgRenderer.ID));
+        Assert.assertNotEquals(key, RenderCache.key("<mxfile/>", "svg", "http://127.0.0.1:5000/convert"));
+        Assert.assertNotEquals(key, RenderCache.key("<mxfile></mxfile>", "svg", SvgRenderer.ID));
+    }
+
+    @Test
+    public void testGetPut() throws Exception {
+        RenderCache cache = RenderCache.get(dir.resolve("cache"), 1024);
+        String key = RenderCache.key("<mxfile/>", "svg", SvgRenderer.ID);
+
+        Path target = dir.resolve("out/diagram.svg");
+        Assert.assertFalse(cache.get(key, "svg", target));
+        Assert.assertFalse(Files.exists(target));
+
+        Path rendered = dir.resolve("rendered.svg");
+        Files.writeString(rendered, "<svg/>");
+        cache.put(key, "svg", rendered);
+        Assert.assertTrue(Files.exists(cache.path(key, "svg")));
+
+        Assert.assertTrue(cache.get(key, "svg", target));
+        Assert.assertEquals("<svg/>", Files.readString(target));
+
+        // the same instance for the same directory
+        Assert.assertSame(cache, RenderCache.get(dir.resolve("out/../cache"), 1024));
+    }
+
+    @Test
+    public void testPrune() throws Exception {
+        RenderCache cache = RenderCache.get(dir.resolve("prune"), 25);
+
+        Path rendered = dir.resolve("rendered.svg");
+        Files.writeString(rendered, "0123456789");
+
+        String first = RenderCache.key("1", "svg", SvgRenderer.ID);
+        String second = RenderCache.key("2", "svg", SvgRenderer.ID);
+        String third = RenderCache.key("3", "svg", SvgRenderer.ID);
+
+        cache.put(first, "svg", rendered);
+        Files.setLastModifiedTime(cache.path(first, "svg"), FileTime.fromMillis(System.currentTimeMillis() - 60000));
+        cache.put(second, "svg", rendered);
+        Files.setLastModifiedTime(cache.path(second, "svg"), FileTime.fromMillis(System.currentTimeMillis() - 30000));
+
+        // reading makes the first entry recently used
+        Assert.assertTrue(cache.get(first, "svg", dir.resolve("diagram.svg")));
+
+        cache.put(third, "svg", rendered);
+        Assert.assertTrue(Files.exists(cache.path(first, "svg")));
+        Assert.assertFalse(Files.exists(cache.path(second, "svg")));
+        Assert.assertTrue(Files.exists(cache.path(third, "svg")));
+    }
+
+    @Test
+    public void testRunningSize() throws Exception {
+        RenderCache cache = RenderCache.get(dir.resolve("size"), 25);
+
+        Path rendered = dir.resolve("rendered.svg");
+        Files.writeString(rendered, "0123456789");
+
+        String first = RenderCache.key("1", "svg", SvgRenderer.ID);
+        cache.put(first, "svg", rendered);
+        Files.setLastModifiedTime(cache.path(first, "svg"), FileTime.fromMillis(System.currentTimeMillis() - 60000));
+
+        // entry of another build is not walked after each write
+        Path other = cache.path(RenderCache.key("other", "svg", SvgRenderer.ID), "svg");
+        Files.createDirectories(other.getParent());
+        Files.writeString(other, "0123456789");
+        Files.setLastModifiedTime(other, FileTime.fromMillis(System.currentTimeMillis() - 30000));
+
+        String second = RenderCache.key("2", "svg", SvgRenderer.ID);
+        cache.put(second, "svg", rendered);
+        Assert.assertTrue(Files.exists(cache.path(first, "svg")));
+        Assert.assertTrue(Files.exists(other));
+
+        // the running size exceeds the limit, the walk counts all the entries
+        String third = RenderCache.key("3", "svg", SvgRenderer.ID);
+        cache.put(third, "svg", rendered);
+        Assert.assertFalse(Files.exists(cache.path(first, "svg")));
+        Assert.assertFalse(Files.exists(other));
+        Assert.assertTrue(Files.exists(cache.path(second, "svg")));
+        Assert.assertTrue(Files.exists(cache.path(third, "svg")));
+    }
+}
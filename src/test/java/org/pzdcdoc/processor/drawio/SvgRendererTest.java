@@ -0,0 +1,121 @@
+package org.pzdcdoc.processor.drawio;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for the built-in DrawIO renderer.
+ *
+ * @author Shamil Vakhitov
+ */
+public class SvgRendererTest {
+    private static final String DIAGRAM = """
+        <mxfile>
+          <diagram id="d" name="Page-1">
+            <mxGraphModel>
+              <root>
+                <mxCell id="0"/>
+                <mxCell id="1" parent="0"/>
+                <mxCell id="2" value="Client" style="rounded=1;whiteSpace=wrap;html=1;fillColor=#dae8fc;strokeColor=#6c8ebf;" vertex="1" parent="1">
+                  <mxGeometry x="40" y="40" width="120" height="60" as="geometry"/>
+                </mxCell>
+                <mxCell id="3" value="Server&lt;br&gt;&lt;b&gt;main&lt;/b&gt;" style="ellipse;whiteSpace=wrap;html=1;" vertex="1" parent="1">
+                  <mxGeometry x="240" y="140" width="120" height="80" as="geometry"/>
+                </mxCell>
+                <mxCell id="4" value="request" style="edgeStyle=orthogonalEdgeStyle;html=1;exitX=1;exitY=0.5;exitDx=0;exitDy=0;" edge="1" parent="1" source="2" target="3">
+                  <mxGeometry relative="1" as="geometry"/>
+                </mxCell>
+                <mxCell id="5" style="dashed=1;endArrow=open;" edge="1" parent="1" source="3" target="2">
+                  <mxGeometry relative="1" as="geometry"/>
+                </mxCell>
+                <mxCell id="6" value="Note &amp; text" style="text;html=1;fontStyle=1;" vertex="1" parent="1">
+                  <mxGeometry x="40" y="240" width="80" height="20" as="geometry"/>
+                </mxCell>
+              </root>
+            </mxGraphModel>
+          </diagram>
+        </mxfile>
+        """;
+
+    @Test
+    public void testRender() throws Exception {
+        Document svg = Jsoup.parse(SvgRenderer.render(DIAGRAM), "", Parser.xmlParser());
+
+        Element root = svg.selectFirst("svg");
+        Assert.assertNotNull(root);
+        Assert.assertEquals("323px", root.attr("width"));
+
+        Element rect = svg.selectFirst("rect[fill=#dae8fc]");
+        Assert.assertNotNull(rect);
+        Assert.assertEquals("40", rect.attr("x"));
+        Assert.assertEquals("9", rect.attr("rx"));
+        Assert.assertEquals("#6c8ebf", rect.attr("stroke"));
+
+        Element ellipse = svg.selectFirst("ellipse");
+        Assert.assertEquals("300", ellipse.attr("cx"));
+        Assert.assertEquals("180", ellipse.attr("cy"));
+
+        // orthogonal edge from the right side of the rectangle to the left of the ellipse, finished by the arrow
+        List<String> paths = svg.select("path").eachAttr("d");
+        Assert.assertEquals("M160,70 L200,70 L200,180 L233.25,180", paths.get(0));
+        Assert.assertEquals("3 3", svg.select("path").get(1).attr("stroke-dasharray"));
+
+        List<String> texts = svg.select("tspan").eachText();
+        Assert.assertTrue(texts.contains("Client"));
+        Assert.assertTrue(texts.contains("Server"));
+        Assert.assertTrue(texts.contains("main"));
+        Assert.assertTrue(texts.contains("request"));
+        Assert.assertTrue(texts.contains("Note & text"));
+        Assert.assertEquals("bold", svg.select("text").last().attr("font-weight"));
+    }
+
+    @Test
+    public void testUnsupported() throws Exception {
+        String source = Files.readString(Path.of("src/doc/_res/diagram.drawio"), StandardCharsets.UTF_8);
+        try {
+            SvgRenderer.render(source);
+            Assert.fail();
+        } catch (SvgRenderer.UnsupportedException e) {
+            Assert.assertTrue(e.getMessage().contains("mxgraph.networks"));
+        }
+    }
+
+    @Test
+    public void testUnsupportedEdge() throws Exception {
+        // supported markers
+        for (String marker : List.of("none", "classic", "classicThin", "open", "openThin", "block", "blockThin", "diamond", "diamondThin", "oval"))
+            SvgRenderer.render(DIAGRAM.replace("endArrow=open;", "startArrow=" + marker + ";endArrow=" + marker + ";"));
+
+        for (String marker : List.of("ERmany", "ERmandOne", "cross", "circle", "box", "dash", "async", "halfCircle"))
+            assertUnsupported(DIAGRAM.replace("endArrow=open;", "endArrow=" + marker + ";"), "end arrow '" + marker + "', cell: 5");
+        assertUnsupported(DIAGRAM.replace("endArrow=open;", "startArrow=ERone;"), "start arrow 'ERone', cell: 5");
+
+        SvgRenderer.render(DIAGRAM.replace("dashed=1;", "shape=connector;dashed=1;"));
+        for (String shape : List.of("flexArrow", "link", "arrow"))
+            assertUnsupported(DIAGRAM.replace("dashed=1;", "shape=" + shape + ";dashed=1;"), "edge shape '" + shape + "', cell: 5");
+    }
+
+    private void assertUnsupported(String source, String message) throws Exception {
+        try {
+            SvgRenderer.render(source);
+            Assert.fail(message);
+        } catch (SvgRenderer.UnsupportedException e) {
+            Assert.assertEquals(message, e.getMessage());
+        }
+    }
+
+    @Test
+    public void testLines() {
+        Assert.assertEquals(List.of("a", "b c"), SvgRenderer.lines("a<br>b&nbsp;c<br/>", true));
+        Assert.assertEquals(List.of("one two", "three"), SvgRenderer.wrap(List.of("one two three"), 8));
+    }
+}
@@ -0,0 +1,47 @@
+package org.pzdcdoc.processor.snippet;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for the index of lines.
+ *
+ * @author Shamil Vakhitov
+ */
+public class LineIndexTest {
+    private static final List<String> LINES = List.of(
+        "class A {",
+        "    void a() {",
+        "    }",
+        "",
+        "    void b() {",
+        "        // body",
+        "    }",
+        "}"
+    );
+
+    @Test
+    public void testStarts() {
+        LineIndex index = new LineIndex(LINES);
+        Assert.assertArrayEquals(new int[] { 1 }, index.starts("class", 5));
+        Assert.assertArrayEquals(new int[] { 5 }, index.starts("void b", 1));
+        Assert.assertArrayEquals(new int[] { 6 }, index.starts("// b", 1));
+        // sorted by distance
+        Assert.assertArrayEquals(new int[] { 2, 5 }, index.starts("void", 1));
+        Assert.assertArrayEquals(new int[] { 5, 2 }, index.starts("void", 6));
+        Assert.assertArrayEquals(new int[0], index.starts("interface", 1));
+    }
+
+    @Test
+    public void testEnds() {
+        LineIndex index = new LineIndex(LINES);
+        Assert.assertArrayEquals(new int[] { 3, 7, 8 }, index.ends("}", 2));
+        // equal distances, the earlier line first
+        Assert.assertArrayEquals(new int[] { 3, 7, 8 }, index.ends("}", 5));
+        Assert.assertArrayEquals(new int[] { 8, 7, 3 }, index.ends("}", 9));
+        Assert.assertArrayEquals(new int[] { 5 }, index.ends("b() {", 1));
+        Assert.assertArrayEquals(new int[0], index.ends(";", 1));
+    }
+}
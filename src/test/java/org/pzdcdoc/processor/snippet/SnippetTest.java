@@ -0,0 +1,54 @@
+package org.pzdcdoc.processor.snippet;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pzdcdoc.Generator;
+
+/**
+ * Unit test for the snippet macro.
+ *
+ * @author Shamil Vakhitov
+ */
+public class SnippetTest {
+    /** The snippet was placed in lines 2 - 4, before adding of the comment. */
+    private static final String SOURCE = "class Sample {\n    // added\n    void run() {\n        start();\n    }\n}\n";
+    private static final String PAGE = "= Index\n\n[snippet, from=\"void\", to=\"}\"%s]\nlink:Sample.java#L2-L4[Sample]\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testIsRelocate() {
+        Assert.assertFalse(Snippet.isRelocate(null, null));
+        Assert.assertTrue(Snippet.isRelocate("true", null));
+        Assert.assertFalse(Snippet.isRelocate("false", null));
+        // the document attribute without value
+        Assert.assertTrue(Snippet.isRelocate(null, ""));
+        Assert.assertFalse(Snippet.isRelocate("false", ""));
+        Assert.assertTrue(Snippet.isRelocate("true", "false"));
+    }
+
+    @Test
+    public void testRelocate() throws Exception {
+        Assert.assertEquals("Moved snippet", 2, convert(""));
+        Assert.assertEquals("Relocation disabled", 2, convert(", relocate=false"));
+
+        Assert.assertEquals("Relocated snippet", 0, convert(", relocate=true"));
+        String html = Files.readString(folder.getRoot().toPath().resolve("out/index.html"));
+        Assert.assertTrue(html, html.contains("lines: 3 - 5"));
+        Assert.assertTrue(html, html.contains("start();"));
+    }
+
+    private int convert(String attributes) throws Exception {
+        Path sourceDir = folder.getRoot().toPath().resolve("src");
+        Files.createDirectories(sourceDir);
+        Files.writeString(sourceDir.resolve("Sample.java"), SOURCE);
+        Files.writeString(sourceDir.resolve("index.adoc"), PAGE.formatted(attributes));
+        return Generator.run("--in", sourceDir.toString(), "--out", folder.getRoot().toPath().resolve("out").toString());
+    }
+}
@@ -0,0 +1,72 @@
+package org.pzdcdoc.processor.snippet;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for the snippet source files cache.
+ *
+ * @author Shamil Vakhitov
+ */
+public class SourceCacheTest {
+    private static final String[] CONTENTS = {
+        "", "\n", "a", "a\n", "a\r\nb", "a\rb\r", "a\n\nb\n\n", "\r\n\r\n", "строка\r\nzeile\n"
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testLines() throws Exception {
+        Path file = folder.newFile("source.java").toPath();
+        for (String content : CONTENTS) {
+            Files.writeString(file, content);
+            var lines = new SourceCache(SourceCache.MAX_BYTES).lines(file);
+            Assert.assertEquals(Files.readAllLines(file), lines);
+        }
+    }
+
+    @Test
+    public void testChanged() throws Exception {
+        Path file = folder.newFile("source.java").toPath();
+        SourceCache cache = new SourceCache(SourceCache.MAX_BYTES);
+
+        Files.writeString(file, "a\nb\n");
+        var lines = cache.lines(file);
+        Assert.assertSame(lines, cache.lines(file));
+
+        Files.writeString(file, "c\nd\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+        Assert.assertNotSame(lines, cache.lines(file));
+        Assert.assertEquals("c", cache.lines(file).get(0));
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        Path first = dir.resolve("first.java");
+        Path second = dir.resolve("second.java");
+        Files.writeString(first, "a\n".repeat(100));
+        Files.writeString(second, "b\n".repeat(100));
+
+        // two lines offsets and 200 bytes for each file
+        SourceCache cache = new SourceCache(1000);
+        var lines = cache.lines(first);
+        cache.lines(second);
+        Assert.assertNotSame(lines, cache.lines(first));
+
+        // large files are counted as well
+        Path large = dir.resolve("large.java");
+        Files.writeString(large, "c\n".repeat(100_000));
+        cache = new SourceCache(300_000);
+        lines = cache.lines(first);
+        Assert.assertEquals(100_000, cache.lines(large).size());
+        Assert.assertNotSame(lines, cache.lines(first));
+    }
+}
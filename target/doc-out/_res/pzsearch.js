@@ -0,0 +1 @@
+$(function () {$$.documents = [{"ref":"changes.html","title":"Changes","content":"changes changes table of contents log in reversed time order log in reversed time order 10.06.2021 sticky header, other css enhancements. 10.06.2021 source links. 10.06.2021 libraries update. 14.05.2021 substring search additionally to full-text. 14.05.2021 toc title points to root index file. 14.05.2021 java 11, args4j for parsing parameters. 14.05.2021 draw.io diagrams. 01.10.2019 added the chapter \"demo\". powered by pzdcdoc at: 2024-11-26 16:43:05 utc"},{"ref":"demo.html","title":"Demo PzdcDoc","content":"demo pzdcdoc demo pzdcdoc table of contents second level header third level header, description list tables simple example proportional column widths joined cells code snippets live snippets simple snippets references resources javadoc cross documents selections diagrams draw.io other 3rd party formats tools vscode plugin eclipse plugin full reference of asciidoctor syntax is available here: https://asciidoctor.org/docs/user-manual second level header reference of selected blocks: https://asciidoctor.org/docs/user-manual/#style note. warning. take attention. it is important. complex admonition blocks: https://asciidoctor.org/docs/asciidoc-syntax-quick-reference/#admon-bl this is very important block. contains list items: one. two. list: position 1 position 2 third level header, description list cpu sometimes is needed for pc. ram is also needed. tables simple example service / component converter service index and search service proportional column widths header 2 header 3 header 1 column 2 column 3 column 1 joined cells key description indexer.context.sharepoint.url root url of sharepoint site. sample: https://sp.mycompany.i sample cloud: https://mycompany.sharepoint.com indexer.context.sharepoint.url.preprocess js function for modifying url before every request sample: requesting sp on different port. indexer.context.sharepoint.request.url.preprocess:\n    new funct({process : function(url) {\n      return url.replace(\"http://sp.mycompany.i\", \" https://sp.mycompany.i:555\");\n   }}) indexer.context.sharepoint.user sharepoint access user. sample: myuser sample cloud: myuser@mycompany.com code snippets live snippets the source link below is automatically extracted to highlighted code snippet during html converting. attributes from and to allow check actuality of content, remove-leading - deletion of line indent. here is the snippet of connecting plugins to generator. // pzdcdoc snippet of: 'org.pzdcdoc.generator', lines: 151 - 157\n\n// https://github.com/asciidoctor/asciidoctorj/blob/v2.1.0/docs/integrator-guide.adoc\njavaextensionregistry javaextensionregistry = asciidoctor.javaextensionregistry();\njavaextensionregistry.inlinemacro(new javadoclink());\njavaextensionregistry.inlinemacro(new drawio());\njavaextensionregistry.blockmacro(new drawioblock());\njavaextensionregistry.block(new snippet());\n//javaextensionregistry.treeprocessor(new treeprocessor()); simple snippets configuration or another selected block of code (source adds horisontal scrolling if needed): # при ошибке правки параметров - обновление таблицы с параметрами, необходимо в случае, если при этом другие параметры изменяются динамическим кодом\nonerrorchangeparamsreload=1\n# код параметра - категории, который должен быть указан перед переводом процесса в конечный статус\ncategoryparamid=<param_code>\n# требование заполненности параметров перед установкой статуса, одна или несколько записей вида\nrequirefillparamidsbeforestatusset.<status_to_code>=<param_codes> java code: class my {\n   private int a;\n\n   public my() {\n      a = 5;\n   }\n} references resources image, recommended to be places in directory _res near of the file. big images may be restricted by width, recommended 600px for horizontal oriented и 300 vertical: any file from a project may be also referenced and automatically copied to _res subdirectory. content of class org.pzdcdoc.processor.snippet.snippet javadoc link to javadoc of the class: ru.bgcrm.dao.user.userdao cross documents references to .adoc files being converted to .html links and validated to corectness. another document: module chapter in the current document: snippets chapter in another document: about use such links for referencing on not ready parts todo, they may be easily found later. such link causes a validation error, may be used for marking not finished places: <<todo, todo>> selections for any selection except of links and file names use bold font: variable, path, parameter, interface / menu / item diagrams draw.io using draw.io in software documentation allows to combine text-based source format stored in same git repo with other and nice representation. inline mode: diagrams may be edited using the regular diagrams.net application or with ide plugins like: https://marketplace.visualstudio.com/items?itemname=hediet.vscode-drawio source diagram files must not be compressed and free of references to library image resources, these requirements are checked during generation and reported as errors case of violation. the compressed checkbox can be found in the file / properties… menu of the standard editor. drawio renderer for converting drawio format to graphic files is used container: https://hub.docker.com/r/tomkludy/drawio-renderer converter url to there has to be defined in pzdcdoc.xml configuration file. <!-- pzdcdoc snippet of: 'src/doc/pzdcdoc.xml', lines: 7 - 11 -->\n\n<!-- converter url, used by drawio processor -->\n<pzdc-drawio-converter>https://drawio.bgerp.org/convert</pzdc-drawio-converter>\n<!-- converter url in locally running docker container\n<pzdc-drawio-converter>http://127.0.0.1:5000/convert</pzdc-drawio-converter>\n--> the value used there points to our test server. keeping it in production configurations is strictly unrecommended. all the data from your diagrams may be analyzed with ai in cambridge analytics, therefore start your own container using the command below and use it instead. docker run -d -p 5000:5000 --shm-size=1g --name drawio-renderer --restart always tomkludy/drawio-renderer:v1.1 after running a container uncomment the second block in the configuration above. other 3rd party formats schemas can also be produced using third-party editors, for example: yed source files are stored in _res directories under names ending in _schema.graphml. files have to be exported as images in png format, preferably with the same name. after any change source files have to be re-exported. tools asciidoctor may be edited in any text editor, or using plugins in modern ides. features: structure preview in outline section; syntax highting; spell checking; hot keys for typical formatting options. vscode plugin eclipse plugin powered by pzdcdoc at: 2026-10-18 14:04:58 utc"},{"ref":"module/index.html","title":"Module","content":"module module table of contents about the module about the module this is the demo chapter about some not existing module of not existing product. image: powered by pzdcdoc at: 2024-11-26 16:43:05 utc"},{"ref":"todo.html","title":"TODO","content":"todo todo table of contents this article is not complete this article is not complete this link has to be replaced to the correct one. please, inform developers. powered by pzdcdoc at: 2024-11-26 16:43:05 utc"}];$$.initSearch();});
\ No newline at end of file
@@ -0,0 +1,4 @@
+package org.pzdcdoc.jmh_generated;
+public class ConvertBenchmark_jmhType extends ConvertBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.pzdcdoc.jmh_generated;
+public class LinksBenchmark_jmhType extends LinksBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.pzdcdoc.jmh_generated;
+public class SearchBenchmark_jmhType extends SearchBenchmark_jmhType_B3 {
+}
+
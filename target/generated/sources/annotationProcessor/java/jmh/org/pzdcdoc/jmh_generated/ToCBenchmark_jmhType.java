@@ -0,0 +1,4 @@
+package org.pzdcdoc.jmh_generated;
+public class ToCBenchmark_jmhType extends ToCBenchmark_jmhType_B3 {
+}
+
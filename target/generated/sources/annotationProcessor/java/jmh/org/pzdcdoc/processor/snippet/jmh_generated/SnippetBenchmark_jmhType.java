@@ -0,0 +1,4 @@
+package org.pzdcdoc.processor.snippet.jmh_generated;
+public class SnippetBenchmark_jmhType extends SnippetBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,224 @@
+/**
+ * This file has to be loaded the last.
+ */
+const $$ = new function() {
+	/**
+	 * Marks a hash from URL in the left ToC and in document area.
+	 */
+	const markFragments = () => {
+		const mark = () => {
+			let hash = window.location.hash;
+			if (hash) {
+				hash = decodeURI(hash);
+				markTocCurrent(hash);
+				markContentCurrent(hash);
+			}
+		};
+
+		mark();
+
+		$(window).bind('hashchange', mark);
+	}
+
+	/**
+	 * Marks current ToC menu item with 'current' class.
+	 * @param {*} hash fragment ID starting from '#'.
+	 */
+	const markTocCurrent = (hash) => {
+		const $selected = $('#toc.toc2 li > p > a.current');
+		const $partLinks = $selected.closest('li').find('ul a');
+
+		$partLinks.removeClass('current');
+		$partLinks.filter('[href="' + hash + '"]').addClass('current');
+	}
+
+	/**
+	 * Marks current content element with 'current' class.
+	 * @param {*} hash fragment ID starting from '#'.
+	 */
+	const markContentCurrent = (hash) => {
+		$('body > #content .current').removeClass('current');
+		$('#content ' + hash).addClass('current');
+	}
+
+	/**
+	 * Scrolls current item in left ToC to visible area.
+	 */
+	const scrollTocCurrentToVisible = () => {
+		const toc2 = document.querySelector('#toc.toc2');
+		const selected = toc2.querySelector('li a.current');
+		toc2.scrollTop = selected.offsetTop - toc2.offsetTop;
+	}
+
+	/**
+	 * Scrolls current content item to visible area.
+	 */
+	const scrollContentCurrentToVisible = () => {
+		const html = document.querySelector('html');
+		const current = html.querySelector('body > #content .current');
+		if (current) {
+			current.scrollIntoView();
+			html.scrollTop -= 300;
+		}
+	}
+
+	/**
+	 * Calls the two scrolling functions above.
+	 */
+	const scrollCurrentToVisible = () => {
+		scrollTocCurrentToVisible();
+		scrollContentCurrentToVisible();
+	}
+
+	/**
+	 * Search index, generated by pzsearch.js: documents and first terms of shards.
+	 */
+	let searchIndex = undefined;
+
+	/**
+	 * Loaded index shards: promises with term to document numbers maps.
+	 */
+	const searchShards = [];
+
+	/**
+	 * Inits search input.
+	 * @param {*} index search index.
+	 */
+	const initSearch = (index) => {
+		searchIndex = index;
+
+		const $input = $('#search input');
+		$input.on("keypress", (e) => {
+			if (!enterPressed(e)) return;
+
+			const $tocLinks = $('#toc.toc2 li a');
+			$tocLinks.removeClass('search').removeAttr('target');
+
+			const $searchCount = $('#search-count');
+			$searchCount.text('');
+
+			const searchValue = $input.val().toLowerCase();
+			if (searchValue) {
+				search(searchValue).then(searchResult => {
+					if (searchResult.length) {
+						$searchCount.html('&nbsp;' + searchResult.length + '&nbsp;');
+						searchResult.forEach(hit => {
+							$tocLinks.each(function () {
+								const $a = $(this);
+								const url = $a.attr('href').replace(/\.\.\//g, '');
+								if (url === hit.ref)
+									$a.addClass('search').attr('target', '_blank');
+							});
+						});
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * Checks if key event is enter.
+	 * @param {*} e the event.
+	 * @returns
+	 */
+	 const enterPressed = (e) => {
+		return (e.keyCode || e.which) == 13;
+	}
+
+	/**
+	 * Searches documents, containing all the tokens.
+	 * A token matches to a term with the same stem or to terms, starting from the token.
+	 * @param {*} value lower cased searched value.
+	 * @returns promise with array of found documents.
+	 */
+	const search = (value) => {
+		// the same separator is used in Search.java
+		const tokens = value.split(/[^\p{L}\p{N}_]+/u).filter(token => token);
+
+		return Promise.all(tokens.map(token => {
+			const stem = stemToken(token);
+			return Promise.all(shardNums(stem, stem).concat(shardNums(token, token + '\uffff')).map(loadShard)).then(shards => {
+				const docs = new Set();
+				shards.forEach(shard => {
+					Object.keys(shard).forEach(term => {
+						if (term === stem || term.startsWith(token))
+							shard[term].forEach(doc => docs.add(doc));
+					});
+				});
+				return docs;
+			});
+		})).then(tokenDocs => {
+			if (!tokenDocs.length)
+				return [];
+			return [...tokenDocs[0]]
+				.filter(doc => tokenDocs.every(docs => docs.has(doc)))
+				.map(doc => searchIndex.docs[doc]);
+		});
+	}
+
+	/**
+	 * Stems a token with the stemmers chain, the same is used in Search.java
+	 * https://lunrjs.com/guides/language_support.html
+	 * @param {*} token lower cased token.
+	 * @returns the stem.
+	 */
+	const stemToken = (token) => {
+		let result = new lunr.Token(token, {});
+		[lunr.stemmer, lunr.ru.stemmer, lunr.de.stemmer].forEach(stemmer => result = stemmer(result));
+		return result.toString();
+	}
+
+	/**
+	 * Finds shards, containing terms in a range.
+	 * @param {*} from the first term.
+	 * @param {*} to the last term.
+	 * @returns array of shard numbers.
+	 */
+	const shardNums = (from, to) => {
+		const shards = searchIndex.shards;
+		const result = [];
+		for (let i = 0; i < shards.length; i++)
+			if (shards[i] <= to && (i + 1 === shards.length || from < shards[i + 1]))
+				result.push(i);
+		return result;
+	}
+
+	/**
+	 * Loads an index shard script on a first usage.
+	 * Scripts are used instead of AJAX requests for supporting opening of files from disk.
+	 * @param {*} num the shard number.
+	 * @returns promise with the shard.
+	 */
+	const loadShard = (num) => {
+		if (!searchShards[num]) {
+			let resolveShard;
+			searchShards[num] = new Promise(resolve => resolveShard = resolve);
+			searchShards[num].resolve = resolveShard;
+
+			const script = document.createElement('script');
+			script.src = $('script[src$="pzsearch.js"]').attr('src').replace('pzsearch.js', 'pzsearch-' + num + '.js');
+			document.head.appendChild(script);
+		}
+		return searchShards[num];
+	}
+
+	/**
+	 * Adds a loaded index shard, called from the shard script.
+	 * @param {*} num the shard number.
+	 * @param {*} shard term to document numbers map.
+	 */
+	const addSearchShard = (num, shard) => {
+		searchShards[num].resolve(shard);
+	}
+
+	// public functions
+	this.markFragments = markFragments;
+	this.scrollCurrentToVisible = scrollCurrentToVisible;
+	this.initSearch = initSearch;
+	this.addSearchShard = addSearchShard;
+}
+
+$(function () {
+	$$.markFragments();
+	setTimeout(() => $$.scrollCurrentToVisible(), 1000);
+})